@@ -2,7 +2,10 @@ package com.qiujie;
 
 import ch.qos.logback.classic.Level;
 import com.qiujie.comparator.*;
+import com.qiujie.enums.FutureEventListEnum;
 import com.qiujie.enums.JobSequenceStrategyEnum;
+import com.qiujie.enums.SimModeEnum;
+import com.qiujie.enums.WorkflowRepositoryEnum;
 import generator.app.*;
 
 import java.io.File;
@@ -15,6 +18,11 @@ public class Constants {
     public static final String SIM_DIR = DATA_DIR + "sim" + File.separator;
     public static final String RESULT_DIR = DATA_DIR + "result" + File.separator;
 
+    // workflow repository, filled by DataLoader
+    public static WorkflowRepositoryEnum REPOSITORY = WorkflowRepositoryEnum.FILE;
+    public static final String WORKFLOW_ARCHIVE = DATA_DIR + "workflow.bin";
+    public static final int DAX_CACHE_CAPACITY = 64; // compiled daxes kept per process
+
     // redis
     public static final String HOST = "localhost";
     public static final int PORT = 6379;
@@ -24,12 +32,16 @@ public class Constants {
     public static final int BATCH_SIZE = 1000;
     public static final int QUEUE_CAPACITY = 50000; // Avoid submitting a large number of tasks in a short period of time
     public static final String CPUS = "cpus";
+    public static SimModeEnum SIM_MODE = SimModeEnum.PROCESS;
+    public static int SIM_PIPELINE_DEPTH = 4; // sim params in flight per child process, so it never waits for its next one
 
     public static final Level LEVEL = Level.ERROR;
 
     public static final int USERS = 1;
     public static final boolean TRACE_FLAG = false;
     public static final double MIN_TIME_BETWEEN_EVENTS = 0.0001;
+    public static final double CLOCK_RESOLUTION = MIN_TIME_BETWEEN_EVENTS; // s per tick of the simulation clock, the times are rounded to it
+    public static FutureEventListEnum FUTURE_EVENT_LIST = FutureEventListEnum.HEAP;
 
     public static final int DCS = 10;
     public static final int DC_HOSTS = 10;
@@ -53,6 +65,7 @@ public class Constants {
             , List.of(0.21, 0.21, 0.21, 0.21, 0.16, 0.16, 0.21, 0.21, 0.21, 0.21, 0.21, 0.19)
             , List.of(0.19, 0.18, 0.18, 0.18, 0.19, 0.19, 0.18, 0.18, 0.18, 0.18, 0.19, 0.19)
             , List.of(0.08, 0.08, 0.09, 0.09, 0.13, 0.13, 0.13, 0.13, 0.11, 0.11, 0.09, 0.09));
+    public static final double ELEC_PRICE_INTERVAL = 3600; // seconds covered by each price of ELEC_PRICES
 
     public static final String ARCH = "x86";
     public static final String OS = "Linux";
@@ -109,6 +122,9 @@ public class Constants {
     public static final int MAX_RETRY_COUNT = Integer.MAX_VALUE;
 
     public static boolean ENABLE_DVFS = false;
+    public static boolean PARALLEL_PLANNING = false; // evaluate the candidate vms of a job in parallel, for single sim runs
+    public static int SIM_PARALLELISM = 1; // threads running the datacenters of a simulation, 1 runs them sequentially
+    public static boolean SIM_EVENT_POOL_SAFE_MODE = false; // never reuse released events, to detect their use after release
     public static final boolean ENABLE_SIM_DATA = false;
 
     public static final double α = 110.0;
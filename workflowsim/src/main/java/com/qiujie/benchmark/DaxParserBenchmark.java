@@ -0,0 +1,69 @@
+package com.qiujie.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.qiujie.entity.Dax;
+import com.qiujie.util.DaxParser;
+import com.qiujie.util.Log;
+import generator.RunAll;
+import generator.app.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Compares the parse throughput of the streaming {@link DaxParser#parse(File)} with the previous
+ * JDOM based {@link DaxParser#parseDom(File)}, on workflows generated like the -n cases of
+ * {@link RunAll}. Both parsers must produce equal {@link Dax} models.
+ * <p>
+ * Usage: DaxParserBenchmark [job numbers, default 1000,10000] [rounds, default 3]
+ */
+@Slf4j
+public class DaxParserBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> jobNumList = args.length > 0 ? List.of(args[0].split(",")).stream().map(Integer::parseInt).toList() : List.of(1000, 10000);
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        Log.setLevel(log, Level.INFO);
+
+        File dir = Files.createTempDirectory("dax").toFile();
+        List<File> fileList = new ArrayList<>();
+        for (Class<? extends Application> clazz : List.of(Montage.class, Genome.class, CyberShake.class, LIGO.class, SIPHT.class)) {
+            for (Integer jobNum : jobNumList) {
+                Application app = clazz.getDeclaredConstructor().newInstance();
+                File file = new File(dir, clazz.getSimpleName() + "_" + jobNum + ".xml");
+                RunAll.run(app, file, "-n", jobNum + "");
+                fileList.add(file);
+            }
+        }
+
+        for (File file : fileList) {
+            Dax expected = DaxParser.parseDom(file);
+            if (!expected.equals(DaxParser.parse(file))) {
+                log.error("❌ {}: the parsers disagree", file.getName());
+            }
+            double domTime = time(DaxParser::parseDom, file, rounds);
+            double staxTime = time(DaxParser::parse, file, rounds);
+            log.info("⏱️  {}: {} jobs, {} KB, JDOM {}ms, StAX {}ms, speedup {}x", file.getName(), expected.getJobNum(), file.length() / 1024,
+                    String.format("%.1f", domTime), String.format("%.1f", staxTime), String.format("%.2f", domTime / staxTime));
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    /**
+     * @return the best parse time in milliseconds
+     */
+    private static double time(Function<File, Dax> parser, File file, int rounds) {
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            parser.apply(file);
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,96 @@
+package com.qiujie.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.qiujie.Constants;
+import com.qiujie.comparator.WorkflowComparatorInterface;
+import com.qiujie.entity.Param;
+import com.qiujie.entity.Result;
+import com.qiujie.entity.SimParam;
+import com.qiujie.enums.FutureEventListEnum;
+import com.qiujie.planner.HEFTPlanner;
+import com.qiujie.planner.RandomPlanner;
+import com.qiujie.starter.SimStarter;
+import com.qiujie.util.Log;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compares the future event lists on the workloads of {@link com.qiujie.example.Example07}.
+ * Each simulation is run in this JVM once per {@link FutureEventListEnum}, and the results of the
+ * two runs must be identical.
+ * <p>
+ * Usage: FutureEventListBenchmark [repeat times, default 2] [warmup rounds, default 1]
+ */
+@Slf4j
+public class FutureEventListBenchmark {
+
+    public static void main(String[] args) {
+        int repeatTimes = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int warmupRounds = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        Log.setLevel(Level.ERROR);
+        Log.setLevel(log, Level.INFO);
+
+        List<String> daxList = List.of(
+                "Genome_100"
+                , "Montage_50"
+                , "Montage_200"
+        );
+        List<SimParam> simParamList = new ArrayList<>();
+        for (Class<? extends WorkflowComparatorInterface> workflowComparator : Constants.WORKFLOW_COMPARATOR_LIST) {
+            for (int i = 0; i < repeatTimes; i++) {
+                simParamList.add(new SimParam(i, daxList, HEFTPlanner.class,
+                        new Param().setWorkflowComparator(workflowComparator)));
+                simParamList.add(new SimParam(i, daxList, RandomPlanner.class,
+                        new Param().setWorkflowComparator(workflowComparator)));
+            }
+        }
+
+        SimStarter starter = new SimStarter();
+        for (int i = 0; i < warmupRounds; i++) {
+            for (FutureEventListEnum futureEventList : FutureEventListEnum.values()) {
+                run(starter, futureEventList, simParamList);
+            }
+        }
+
+        List<List<Result>> resultLists = new ArrayList<>();
+        for (FutureEventListEnum futureEventList : FutureEventListEnum.values()) {
+            long start = System.nanoTime();
+            List<Result> resultList = run(starter, futureEventList, simParamList);
+            double runtime = (System.nanoTime() - start) / 1e9;
+            log.info("⏱️  {}: {} sims in {}s, {} sims/s", futureEventList, resultList.size(),
+                    String.format("%.3f", runtime), String.format("%.2f", resultList.size() / runtime));
+            resultLists.add(resultList);
+        }
+
+        List<Result> expected = resultLists.getFirst();
+        for (int i = 1; i < resultLists.size(); i++) {
+            List<Result> actual = resultLists.get(i);
+            for (int j = 0; j < expected.size(); j++) {
+                if (!sameOutcome(expected.get(j), actual.get(j))) {
+                    log.error("❌ {} and {} differ on sim {}", FutureEventListEnum.values()[0], FutureEventListEnum.values()[i], simParamList.get(j));
+                }
+            }
+        }
+        Constants.FUTURE_EVENT_LIST = FutureEventListEnum.HEAP;
+    }
+
+    private static List<Result> run(SimStarter starter, FutureEventListEnum futureEventList, List<SimParam> simParamList) {
+        Constants.FUTURE_EVENT_LIST = futureEventList;
+        List<Result> resultList = new ArrayList<>();
+        for (SimParam simParam : simParamList) {
+            resultList.add(starter.start(simParam));
+        }
+        return resultList;
+    }
+
+    private static boolean sameOutcome(Result a, Result b) {
+        return a.getElecCost() == b.getElecCost()
+                && a.getFinishTime() == b.getFinishTime()
+                && a.getRetryCount() == b.getRetryCount()
+                && a.getOverdueCount() == b.getOverdueCount()
+                && Objects.equals(a.getCompletionDetail(), b.getCompletionDetail());
+    }
+}
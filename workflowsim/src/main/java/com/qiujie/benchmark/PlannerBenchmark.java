@@ -0,0 +1,114 @@
+package com.qiujie.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.qiujie.Constants;
+import com.qiujie.entity.Job;
+import com.qiujie.entity.Param;
+import com.qiujie.entity.Result;
+import com.qiujie.entity.SimParam;
+import com.qiujie.planner.HEFTPlanner;
+import com.qiujie.starter.SimStarter;
+import com.qiujie.util.Log;
+import lombok.extern.slf4j.Slf4j;
+import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the planning time and the bytes allocated by {@link HEFTPlanner#run()} on one workflow,
+ * by default Genome_400 on {@link Constants#VMS} = 200 vms. The planner runs inside a normal
+ * simulation, so the vms are placed on hosts exactly as in the experiments. It is run with the serial
+ * and the parallel ({@link Constants#PARALLEL_PLANNING}) evaluation of the candidate vms, which must
+ * plan the same vm for every job.
+ * <p>
+ * Usage: PlannerBenchmark [dax, default Genome_400] [vms, default 200] [rounds, default 10] [warmup rounds, default 3]
+ */
+@Slf4j
+public class PlannerBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // planning time (ns), allocated bytes of all the threads and planned vms of the last run
+    private static long planTime;
+    private static long planBytes;
+    private static List<Integer> planVms;
+
+    /**
+     * A {@link HEFTPlanner} recording the cost of its own {@link #run()}
+     */
+    public static class MeasuredHEFTPlanner extends HEFTPlanner {
+
+        public MeasuredHEFTPlanner(ContinuousDistribution random, Param param) {
+            super(random, param);
+        }
+
+        @Override
+        public void run() throws Exception {
+            Map<Long, Long> bytes = allocatedBytes();
+            long start = System.nanoTime();
+            super.run();
+            planTime = System.nanoTime() - start;
+            planBytes = allocatedBytes().entrySet().stream()
+                    .mapToLong(entry -> entry.getValue() - bytes.getOrDefault(entry.getKey(), 0L)).sum();
+            planVms = getSequence().stream().map(Job::getGuestId).toList();
+        }
+    }
+
+    /**
+     * @return the bytes allocated so far by every live thread, by thread id: the parallel evaluation
+     * allocates on the common pool workers, not only on the planning thread
+     */
+    private static Map<Long, Long> allocatedBytes() {
+        long[] ids = THREAD_MX_BEAN.getAllThreadIds();
+        long[] bytes = THREAD_MX_BEAN.getThreadAllocatedBytes(ids);
+        Map<Long, Long> map = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0) {
+                map.put(ids[i], bytes[i]);
+            }
+        }
+        return map;
+    }
+
+    public static void main(String[] args) {
+        String dax = args.length > 0 ? args[0] : "Genome_400";
+        Constants.VMS = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int warmupRounds = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        Log.setLevel(Level.ERROR);
+        Log.setLevel(log, Level.INFO);
+
+        SimStarter starter = new SimStarter();
+        SimParam simParam = new SimParam(0, List.of(dax), MeasuredHEFTPlanner.class, new Param());
+        List<Integer> expectedVms = null;
+        for (boolean parallel : List.of(false, true)) {
+            Constants.PARALLEL_PLANNING = parallel;
+            for (int i = 0; i < warmupRounds; i++) {
+                starter.start(simParam);
+            }
+            long bestTime = Long.MAX_VALUE;
+            long totalTime = 0;
+            long totalBytes = 0;
+            Result result = null;
+            for (int i = 0; i < rounds; i++) {
+                result = starter.start(simParam);
+                bestTime = Math.min(bestTime, planTime);
+                totalTime += planTime;
+                totalBytes += planBytes;
+            }
+            log.info("⏱️  HEFT ({}) on {} x {} vms: best {}ms, mean {}ms, {} MB allocated per plan, elecCost {}, finishTime {}",
+                    parallel ? "parallel" : "serial", dax, Constants.VMS,
+                    String.format("%.2f", bestTime / 1e6), String.format("%.2f", totalTime / 1e6 / rounds),
+                    String.format("%.2f", totalBytes / 1048576.0 / rounds), result.getElecCost(), result.getFinishTime());
+            if (expectedVms == null) {
+                expectedVms = planVms;
+            } else if (!expectedVms.equals(planVms)) {
+                log.error("❌ The parallel evaluation planned different vms than the serial one");
+            }
+        }
+        Constants.PARALLEL_PLANNING = false;
+    }
+}
@@ -5,25 +5,34 @@ import static com.qiujie.Constants.*;
 import com.qiujie.entity.DvfsVm;
 import com.qiujie.entity.Fv;
 import com.qiujie.entity.Job;
-import com.qiujie.util.ExperimentUtil;
+import com.qiujie.enums.WorkflowActionTags;
 import lombok.extern.slf4j.Slf4j;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
 import org.cloudbus.cloudsim.Consts;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
 
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
 
 @Slf4j
 public class DvfsCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared {
 
     private final ContinuousDistribution random;
 
+    // the simulation the owning vm is created in
+    private final SimulationContext context;
+
+    // executing job -> time of its next transient fault
+    private final Map<Job, Double> faultTimeMap = new HashMap<>();
+
     public DvfsCloudletSchedulerSpaceShared(ContinuousDistribution random) {
         this.random = random;
+        this.context = CloudSim.getContext();
     }
 
 
@@ -37,32 +46,9 @@ public class DvfsCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShar
         for (Cloudlet cl : getCloudletExecList()) {
             Job job = (Job) cl;
             WorkflowDatacenter dc = (WorkflowDatacenter) job.getFv().getVm().getDatacenter();
-            job.updateElecCost(ExperimentUtil.calculateElecCost(dc.getElecPrice(), getPreviousTime(), currentTime, job.getFv().getPower()));
+            job.updateElecCost(dc.getElecTariff().calculateElecCost(getPreviousTime(), currentTime, job.getFv().getPower()));
             double totalCurrentAllocatedMips = getTotalCurrentAllocatedMipsForCloudlet(cl, currentTime);
-            double prevFinishedLength = job.getCloudletFinishedSoFar();
             cl.updateCloudletFinishedSoFar((long) (timeSpan * totalCurrentAllocatedMips * Consts.MILLION));
-            // assume no transient fault in the file transfer stage
-            double transferLength = job.getFileTransferTime() * totalCurrentAllocatedMips * Consts.MILLION;
-            double execTimeSpan = timeSpan;
-            if (prevFinishedLength < transferLength) {
-                execTimeSpan = Math.max(0, timeSpan - (transferLength - prevFinishedLength) / (totalCurrentAllocatedMips * Consts.MILLION));
-            }
-            double reliability = ExperimentUtil.calculateReliability(job.getFv().getLambda(), execTimeSpan);
-            if (random.sample() < 1 - reliability && job.canRetry()) {
-                job.setCloudletLength(job.getCloudletFinishedSoFar() / Consts.MILLION + job.getLength());
-                job.updateRetryCount();
-                log.warn("{}: Retrying {} for Job #{} {}", CloudSim.clock(), job.getRetryCount(), job.getCloudletId(), job.getName());
-                if (ENABLE_DVFS) {
-                    Fv fv = job.getFv();
-                    DvfsVm vm = (DvfsVm) fv.getVm();
-                    int index = Math.max(vm.getFvList().indexOf(job.getFv()) - 1, 0);
-                    Fv newFv = vm.getFvList().get(index);
-                    job.setFv(newFv);
-                    if (!fv.equals(newFv)) {
-                        log.warn("{}: Adjusting Fv of {} #{} from L{} to L{} for Job #{} {}", CloudSim.clock(), vm.getClassName(), vm.getId(), fv.getLevel(), newFv.getLevel(), job.getCloudletId(), job.getName());
-                    }
-                }
-            }
         }
 
         // Remove finished cloudlets
@@ -70,6 +56,7 @@ public class DvfsCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShar
             if (cl.isFinished()) {
                 cloudletJustFinishedList.add(cl);
                 cloudletFinish(cl);
+                faultTimeMap.remove(cl);
             }
         }
         getCloudletExecList().removeAll(cloudletJustFinishedList);
@@ -88,8 +75,8 @@ public class DvfsCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShar
         double nextEvent = Double.MAX_VALUE;
         for (Cloudlet cl : getCloudletExecList()) {
             double estimatedFinishTime = getEstimatedFinishTime(cl, currentTime);
-            if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
-                estimatedFinishTime = currentTime + CloudSim.getMinTimeBetweenEvents();
+            if (estimatedFinishTime - currentTime < context.getMinTimeBetweenEvents()) {
+                estimatedFinishTime = currentTime + context.getMinTimeBetweenEvents();
             }
             if (estimatedFinishTime < nextEvent) {
                 nextEvent = estimatedFinishTime;
@@ -119,6 +106,7 @@ public class DvfsCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShar
             cl.updateStatus(Cloudlet.CloudletStatus.INEXEC);
             getCloudletExecList().add(cl);
             usedPes += cl.getNumberOfPes();
+            scheduleFault(job, context.clock() + fileTransferTime);
         } else {// no enough free PEs: go to the waiting queue
             cl.updateStatus(Cloudlet.CloudletStatus.QUEUED);
             getCloudletWaitingList().add(cl);
@@ -129,6 +117,76 @@ public class DvfsCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShar
     }
 
 
+    @Override
+    protected void updateWaitingCloudlets(double currentTime, Object info) {
+        int execSize = getCloudletExecList().size();
+        super.updateWaitingCloudlets(currentTime, info);
+        for (int i = execSize; i < getCloudletExecList().size(); i++) {
+            Job job = (Job) getCloudletExecList().get(i);
+            scheduleFault(job, currentTime + job.getFileTransferTime());
+        }
+    }
+
+
+    /**
+     * @return whether a fault of the job is scheduled and not yet processed; the fault of a job which
+     * finished or was already retried is stale
+     */
+    public boolean hasPendingFault(Job job) {
+        return faultTimeMap.containsKey(job);
+    }
+
+
+    /**
+     * Process the transient fault of the job. The finished part of the job is lost, so it is retried
+     * from the start, on a lower fv if DVFS is enabled, and its next fault is scheduled.
+     * A fault of a job which is no longer executing is ignored.
+     */
+    public void processJobFault(Job job, double currentTime) {
+        if (faultTimeMap.remove(job) == null || job.isFinished()) {
+            return;
+        }
+        job.setCloudletLength(job.getCloudletFinishedSoFar() / Consts.MILLION + job.getLength());
+        job.updateRetryCount();
+        log.warn("{}: Retrying {} for Job #{} {}", currentTime, job.getRetryCount(), job.getCloudletId(), job.getName());
+        if (ENABLE_DVFS) {
+            Fv fv = job.getFv();
+            DvfsVm vm = (DvfsVm) fv.getVm();
+            int index = Math.max(vm.getFvList().indexOf(job.getFv()) - 1, 0);
+            Fv newFv = vm.getFvList().get(index);
+            job.setFv(newFv);
+            if (!fv.equals(newFv)) {
+                log.warn("{}: Adjusting Fv of {} #{} from L{} to L{} for Job #{} {}", currentTime, vm.getClassName(), vm.getId(), fv.getLevel(), newFv.getLevel(), job.getCloudletId(), job.getName());
+            }
+        }
+        scheduleFault(job, currentTime);
+    }
+
+
+    /**
+     * Draw the time to the next transient fault of the job from the exponential distribution of its fv,
+     * counted from the start of its execution, and schedule the fault event.
+     * Assume no transient fault in the file transfer stage, and none once the job cannot retry.
+     * The random distribution is shared by all the datacenters, so the draw is deferred to keep the
+     * same sequence of draws when the datacenters run in parallel.
+     */
+    private void scheduleFault(Job job, double execStartTime) {
+        double lambda = job.getFv().getLambda();
+        if (!job.canRetry() || lambda <= 0) {
+            return;
+        }
+        context.defer(() -> {
+            double faultTime = execStartTime - Math.log(1 - random.sample()) / lambda;
+            if (Double.isInfinite(faultTime)) {
+                return;
+            }
+            faultTimeMap.put(job, faultTime);
+            WorkflowDatacenter dc = (WorkflowDatacenter) job.getFv().getVm().getDatacenter();
+            dc.schedule(dc.getId(), faultTime - context.clock(), WorkflowActionTags.JOB_FAULT, job);
+        });
+    }
+
+
     @Override
     public double getTotalCurrentAvailableMipsForCloudlet(Cloudlet cl, List<Double> mipsShare) {
         return getCapacity((Job) cl) * cl.getNumberOfPes();
@@ -4,15 +4,14 @@ package com.qiujie.core;
 import com.qiujie.entity.File;
 import com.qiujie.entity.Job;
 import com.qiujie.entity.Workflow;
+import com.qiujie.enums.WorkflowActionTags;
 import com.qiujie.planner.WorkflowPlannerAbstract;
-import com.qiujie.test.ValidateUtil;
 import com.qiujie.util.ExperimentUtil;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.cloudbus.cloudsim.*;
 import org.cloudbus.cloudsim.core.*;
 import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
-import org.cloudbus.cloudsim.lists.VmList;
 
 import java.util.*;
 
@@ -34,13 +33,25 @@ public class WorkflowBroker extends DatacenterBroker {
 
     protected Set<Job> jobReceivedSet;
 
+    // job not submitted yet -> number of its parents not received yet
+    private final Map<Job, Integer> remainingParentMap;
+
+    // job -> position in the planner sequence
+    private final Map<Job, Integer> sequencePositionMap;
+
+    // jobs whose parents are all received, in the order of the planner sequence
+    private final PriorityQueue<Job> readyQueue;
+
 
     public WorkflowBroker(ContinuousDistribution random, WorkflowPlannerAbstract planner) throws Exception {
-        super(WorkflowBroker.class.getSimpleName() + "_#" + CloudSim.getEntityList().size());
+        super(WorkflowBroker.class.getSimpleName() + "_#" + CloudSim.getNumEntities());
         this.random = random;
         this.planner = planner;
         this.workflowList = new ArrayList<>();
         this.jobReceivedSet = new HashSet<>();
+        this.remainingParentMap = new HashMap<>();
+        this.sequencePositionMap = new HashMap<>();
+        this.readyQueue = new PriorityQueue<>(Comparator.comparingInt(sequencePositionMap::get));
     }
 
 
@@ -61,17 +72,16 @@ public class WorkflowBroker extends DatacenterBroker {
      */
     @Override
     protected void processVmCreateAck(SimEvent ev) {
-        int[] data = (int[]) ev.getData();
-        int datacenterId = data[0];
-        int vmId = data[1];
-        int result = data[2];
-        GuestEntity guest = VmList.getById(getGuestList(), vmId);
+        int datacenterId = ev.getIntValue(0);
+        int vmId = ev.getIntValue(1);
+        int result = ev.getIntValue(2);
+        GuestEntity guest = getGuestById(vmId);
         if (result == CloudSimTags.TRUE) {
             getVmsToDatacentersMap().put(vmId, datacenterId);
-            getGuestsCreatedList().add(guest);
-            log.info("{}: {}: {} #{} has been created in Datacenter #{}, {} #{}", CloudSim.clock(), getName(), guest.getClassName(), vmId, datacenterId, guest.getHost().getClassName(), guest.getHost().getId());
+            addGuestCreated(guest);
+            log.info("{}: {}: {} #{} has been created in Datacenter #{}, {} #{}", getContext().clock(), getName(), guest.getClassName(), vmId, datacenterId, guest.getHost().getClassName(), guest.getHost().getId());
         } else {
-            log.trace("{}: {}: Creation of {} #{} failed in Datacenter #{}", CloudSim.clock(), getName(), guest.getClassName(), vmId, datacenterId);
+            log.trace("{}: {}: Creation of {} #{} failed in Datacenter #{}", getContext().clock(), getName(), guest.getClassName(), vmId, datacenterId);
         }
 
         incrementVmsAcks();
@@ -94,7 +104,7 @@ public class WorkflowBroker extends DatacenterBroker {
                 if (!getGuestsCreatedList().isEmpty()) { // if some vm were created
                     processPlanning();
                 } else { // no vms created. abort
-                    log.info("{}: {}: none of the required VMs could be created. Aborting", CloudSim.clock(), getName());
+                    log.info("{}: {}: none of the required VMs could be created. Aborting", getContext().clock(), getName());
                     finishExecution();
                 }
             }
@@ -114,10 +124,19 @@ public class WorkflowBroker extends DatacenterBroker {
         Job job = (Job) cloudlet;
         getCloudletReceivedList().add(cloudlet);
         jobReceivedSet.add(job);
-        log.info("{}: {}: {} #{} {} return received, the number of finished Cloudlets is {}", CloudSim.clock(), getName(), cloudlet.getClass().getSimpleName(), cloudlet.getCloudletId(), job.getName(), getCloudletReceivedList().size());
+        for (Job child : job.getChildList()) {
+            Integer remaining = remainingParentMap.get(child);
+            if (remaining != null) {
+                remainingParentMap.put(child, remaining - 1);
+                if (remaining == 1) {
+                    readyQueue.add(child);
+                }
+            }
+        }
+        log.info("{}: {}: {} #{} {} return received, the number of finished Cloudlets is {}", getContext().clock(), getName(), cloudlet.getClass().getSimpleName(), cloudlet.getCloudletId(), job.getName(), getCloudletReceivedList().size());
         cloudletsSubmitted--;
         if (getCloudletList().isEmpty() && cloudletsSubmitted == 0) { // all cloudlets executed
-            log.info("{}: {}: All Cloudlets executed. Finishing...", CloudSim.clock(), getName());
+            log.info("{}: {}: All Cloudlets executed. Finishing...", getContext().clock(), getName());
             clearDatacenters();
             finishExecution();
         } else {
@@ -126,7 +145,9 @@ public class WorkflowBroker extends DatacenterBroker {
     }
 
     /**
-     * Submit cloudlets to the created VMs.
+     * Submit the ready cloudlets to the created VMs, in the order of the planner sequence.
+     * A job is ready once all its parents are received, see {@link #processCloudletReturn(SimEvent)}.
+     * The cloudlets are sent in one batch per datacenter.
      *
      * @pre $none
      * @post $none
@@ -134,50 +155,54 @@ public class WorkflowBroker extends DatacenterBroker {
      */
     @Override
     protected void submitCloudlets() {
-        List<Cloudlet> successfullySubmitted = new ArrayList<>();
-        for (Cloudlet cloudlet : getCloudletList()) {
-            Job job = (Job) cloudlet;
-            // if its parents have not been finished, skip it
-            if (!jobReceivedSet.containsAll(job.getParentList())) {
-                continue;
-            }
+        List<Job> postponedList = new ArrayList<>();
+        // datacenter id -> the ready cloudlets sent to it as one batch
+        Map<Integer, List<Cloudlet>> batchMap = new LinkedHashMap<>();
+        while (!readyQueue.isEmpty()) {
+            Job job = readyQueue.poll();
+            Cloudlet cloudlet = job;
             GuestEntity vm;
             // if user didn't bind this cloudlet and it has not been executed yet
             if (cloudlet.getGuestId() == -1) {
                 // randomly select a VM
                 vm = ExperimentUtil.getRandomElement(random, getGuestsCreatedList());
             } else { // submit to the specific vm
-                vm = VmList.getById(getGuestsCreatedList(), cloudlet.getGuestId());
+                vm = getCreatedGuestById(cloudlet.getGuestId());
                 if (vm == null) { // vm was not created
-                    vm = VmList.getById(getGuestList(), cloudlet.getGuestId()); // check if exists in the submitted list
+                    vm = getGuestById(cloudlet.getGuestId()); // check if exists in the submitted list
                     if (vm != null) {
-                        log.info("{}: {}: Postponing execution of cloudlet #{}: bount {} #{} not available", CloudSim.clock(), getName(), cloudlet.getCloudletId(), vm.getClassName(), vm.getId());
+                        log.info("{}: {}: Postponing execution of cloudlet #{}: bount {} #{} not available", getContext().clock(), getName(), cloudlet.getCloudletId(), vm.getClassName(), vm.getId());
                     } else {
-                        log.info("{}: {}: Postponing execution of cloudlet #{}: bount guest entity of id {} doesn't exist", CloudSim.clock(), getName(), cloudlet.getCloudletId(), cloudlet.getGuestId());
+                        log.info("{}: {}: Postponing execution of cloudlet #{}: bount guest entity of id {} doesn't exist", getContext().clock(), getName(), cloudlet.getCloudletId(), cloudlet.getGuestId());
                     }
+                    postponedList.add(job);
                     continue;
                 }
             }
-            log.info("{}: {}: Sending {} #{} {} to {} #{}", CloudSim.clock(), getName(), cloudlet.getClass().getSimpleName(), cloudlet.getCloudletId(), ((Job) cloudlet).getName(), vm.getClassName(), vm.getId());
+            log.info("{}: {}: Sending {} #{} {} to {} #{}", getContext().clock(), getName(), cloudlet.getClass().getSimpleName(), cloudlet.getCloudletId(), job.getName(), vm.getClassName(), vm.getId());
             cloudlet.setGuestId(vm.getId());
-            sendNow(getVmsToDatacentersMap().get(vm.getId()), CloudActionTags.CLOUDLET_SUBMIT, cloudlet);
+            batchMap.computeIfAbsent(getVmsToDatacentersMap().get(vm.getId()), k -> new ArrayList<>()).add(cloudlet);
             cloudletsSubmitted++;
             getCloudletSubmittedList().add(cloudlet);
-            successfullySubmitted.add(cloudlet);
+            remainingParentMap.remove(job);
+        }
+        batchMap.forEach((datacenterId, batch) -> sendNow(datacenterId, WorkflowActionTags.CLOUDLET_SUBMIT_BATCH, batch));
+        readyQueue.addAll(postponedList);
+        // the waiting jobs are tracked by remainingParentMap, the waiting list is emptied once all are submitted
+        if (remainingParentMap.isEmpty()) {
+            getCloudletList().clear();
         }
-        // remove submitted cloudlets from waiting list
-        getCloudletList().removeAll(successfullySubmitted);
     }
 
 
     @Override
     protected void clearDatacenters() {
         for (GuestEntity vm : getGuestsCreatedList()) {
-            log.trace("{}: {}: Destroying {} #{}", CloudSim.clock(), getName(), vm.getClassName(), vm.getId());
+            log.trace("{}: {}: Destroying {} #{}", getContext().clock(), getName(), vm.getClassName(), vm.getId());
             sendNow(getVmsToDatacentersMap().get(vm.getId()), CloudActionTags.VM_DESTROY, vm);
         }
 
-        getGuestsCreatedList().clear();
+        clearGuestsCreated();
     }
 
 
@@ -190,9 +215,9 @@ public class WorkflowBroker extends DatacenterBroker {
      */
     @Override
     protected void processResourceCharacteristicsRequest(SimEvent ev) {
-        setDatacenterIdsList(CloudSim.getCloudResourceList());
+        setDatacenterIdsList(getContext().getCloudResourceList());
         setDatacenterCharacteristicsList(new HashMap<>());
-        log.info("{}: {}: Cloud Resource List received with {} datacenter(s)", CloudSim.clock(), getName(), getDatacenterIdsList().size());
+        log.info("{}: {}: Cloud Resource List received with {} datacenter(s)", getContext().clock(), getName(), getDatacenterIdsList().size());
         for (Integer datacenterId : getDatacenterIdsList()) {
             sendNow(datacenterId, CloudActionTags.RESOURCE_CHARACTERISTICS, getId());
         }
@@ -206,12 +231,20 @@ public class WorkflowBroker extends DatacenterBroker {
         selectHostForLocalInputFile();
         planner.setWorkflowList(new ArrayList<>(workflowList));
         planner.setVmList(new ArrayList<>(getGuestsCreatedList()));
-        log.debug("{}: {}: Created {} Vms {}", CloudSim.clock(), getName(), getGuestsCreatedList().size(), getGuestsCreatedList().stream().map(GuestEntity::getId).sorted().toList());
-        log.debug("{}: {}: Preparing to plan {} Workflows {}, a total of {} Jobs", CloudSim.clock(), getName(), getWorkflowList().size(), getWorkflowList().stream().map(Workflow::getName).toList(), getWorkflowList().stream().mapToInt(Workflow::getJobNum).sum());
+        log.debug("{}: {}: Created {} Vms {}", getContext().clock(), getName(), getGuestsCreatedList().size(), getGuestsCreatedList().stream().map(GuestEntity::getId).sorted().toList());
+        log.debug("{}: {}: Preparing to plan {} Workflows {}, a total of {} Jobs", getContext().clock(), getName(), getWorkflowList().size(), getWorkflowList().stream().map(Workflow::getName).toList(), getWorkflowList().stream().mapToInt(Workflow::getJobNum).sum());
         planner.start();
-        log.debug("{}: {}: Job schedule sequence {}", CloudSim.clock(), getName(), planner.getSequence().stream().map(Cloudlet::getCloudletId).toList());
-        log.info("{}: {}: Starting submitting...", CloudSim.clock(), getName());
+        log.debug("{}: {}: Job schedule sequence {}", getContext().clock(), getName(), planner.getSequence().stream().map(Cloudlet::getCloudletId).toList());
+        log.info("{}: {}: Starting submitting...", getContext().clock(), getName());
         submitCloudletList(planner.getSequence());
+        for (Job job : planner.getSequence()) {
+            sequencePositionMap.put(job, sequencePositionMap.size());
+            int remaining = (int) job.getParentList().stream().filter(parent -> !jobReceivedSet.contains(parent)).count();
+            remainingParentMap.put(job, remaining);
+            if (remaining == 0) {
+                readyQueue.add(job);
+            }
+        }
         submitCloudlets();
     }
 
@@ -3,7 +3,9 @@ package com.qiujie.core;
 
 import com.qiujie.Constants;
 import com.qiujie.entity.File;
+import com.qiujie.entity.ElecTariff;
 import com.qiujie.entity.Job;
+import com.qiujie.enums.WorkflowActionTags;
 import com.qiujie.util.ExperimentUtil;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -11,8 +13,12 @@ import org.cloudbus.cloudsim.*;
 import org.cloudbus.cloudsim.core.*;
 
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 
 @Getter
@@ -22,10 +28,36 @@ public class WorkflowDatacenter extends Datacenter {
 
     private final List<Double> elecPrice;
 
+    private final ElecTariff elecTariff;
+
+    // host -> the time its next cloudlet is expected to finish, as of its last update
+    private final Map<HostEntity, Double> hostWakeUpTimeMap = new HashMap<>();
+
+    // hosts to update at the next update whatever their wake-up time, as their vms get new cloudlets or faults
+    private final Set<HostEntity> changedHostSet = new HashSet<>();
+
+    // id and time of the earliest pending VM_DATACENTER_EVENT, the ones with other ids are superseded
+    private long wakeUpId;
+    private double wakeUpTime = Double.MAX_VALUE;
+
+    // VM_DATACENTER_EVENTs processed and skipped as superseded
+    private long wakeUpCount;
+    private long skippedWakeUpCount;
+
 
     public WorkflowDatacenter(DatacenterCharacteristics characteristics, VmAllocationPolicy vmAllocationPolicy, List<Storage> storageList, double schedulingInterval, List<Double> elecPrice) throws Exception {
-        super(WorkflowDatacenter.class.getSimpleName() + "_#" + CloudSim.getEntityList().size(), characteristics, vmAllocationPolicy, storageList, schedulingInterval);
+        super(WorkflowDatacenter.class.getSimpleName() + "_#" + CloudSim.getNumEntities(), characteristics, vmAllocationPolicy, storageList, schedulingInterval);
         this.elecPrice = elecPrice;
+        this.elecTariff = new ElecTariff(elecPrice, Constants.ELEC_PRICE_INTERVAL);
+    }
+
+    /**
+     * A datacenter only changes its own hosts, vms and the jobs running on them, so the datacenters
+     * run their events of the same time in parallel when {@link Constants#SIM_PARALLELISM} > 1
+     */
+    @Override
+    public boolean isParallelSafe() {
+        return true;
     }
 
     /**
@@ -39,29 +71,56 @@ public class WorkflowDatacenter extends Datacenter {
      */
     @Override
     protected void processCloudletSubmit(SimEvent ev, boolean ack) {
+        // bring the host up to now before it gets the cloudlet
+        Cloudlet cloudlet = (Cloudlet) ev.getData();
+        markHostChanged(cloudlet.getGuestId(), cloudlet.getUserId());
         updateCloudletProcessing();
+        submitCloudlet(cloudlet, ack);
+        checkCloudletCompletion();
+    }
 
-        try {
-            // gets the Cloudlet object
-            Cloudlet cloudlet = (Cloudlet) ev.getData();
 
+    /**
+     * Processes the submission of a batch of Cloudlets sent at once by the broker, with a single
+     * update of the cloudlet processing and a single completion check for the whole batch.
+     *
+     * @param ev information about the event just happened, its data is the list of Cloudlets
+     */
+    @SuppressWarnings("unchecked")
+    protected void processCloudletSubmitBatch(SimEvent ev) {
+        List<Cloudlet> cloudletList = (List<Cloudlet>) ev.getData();
+        // bring the hosts up to now before they get the cloudlets
+        for (Cloudlet cloudlet : cloudletList) {
+            markHostChanged(cloudlet.getGuestId(), cloudlet.getUserId());
+        }
+        updateCloudletProcessing();
+        for (Cloudlet cloudlet : cloudletList) {
+            submitCloudlet(cloudlet, false);
+        }
+        checkCloudletCompletion();
+    }
+
+
+    /**
+     * Submits a Cloudlet to the scheduler of its vm.
+     *
+     * @param cloudlet the Cloudlet
+     * @param ack      indicates if the sender expects to receive an acknowledge message
+     */
+    private void submitCloudlet(Cloudlet cloudlet, boolean ack) {
+        try {
             // checks whether this Cloudlet has finished or not
             if (cloudlet.isFinished()) {
-                String name = CloudSim.getEntityName(cloudlet.getUserId());
-                log.warn("{}: {}: Warning - {} #{} owned by {} is already completed/finished.", CloudSim.clock(), getName(), cloudlet.getClass().getSimpleName(), cloudlet.getCloudletId(), name);
-                log.info("{}: {}: Therefore, it is not being executed again", CloudSim.clock(), getName());
+                String name = getContext().getEntityName(cloudlet.getUserId());
+                log.warn("{}: {}: Warning - {} #{} owned by {} is already completed/finished.", getContext().clock(), getName(), cloudlet.getClass().getSimpleName(), cloudlet.getCloudletId(), name);
+                log.info("{}: {}: Therefore, it is not being executed again", getContext().clock(), getName());
                 // NOTE: If a Cloudlet has finished, then it won't be processed.
                 // So, if ack is required, this method sends back a result.
                 // If ack is not required, this method don't send back a result.
                 // Hence, this might cause CloudSim to be hanged since waiting
                 // for this Cloudlet back.
                 if (ack) {
-                    int[] data = new int[3];
-                    data[0] = getId();
-                    data[1] = cloudlet.getCloudletId();
-                    data[2] = CloudSimTags.FALSE;
-
-                    sendNow(cloudlet.getUserId(), CloudActionTags.CLOUDLET_SUBMIT_ACK, data);
+                    sendValuesNow(cloudlet.getUserId(), CloudActionTags.CLOUDLET_SUBMIT_ACK, getId(), cloudlet.getCloudletId(), CloudSimTags.FALSE);
                 }
 
                 sendNow(cloudlet.getUserId(), CloudActionTags.CLOUDLET_RETURN, cloudlet);
@@ -87,29 +146,141 @@ public class WorkflowDatacenter extends Datacenter {
             double fileTransferTime = predictFileTransferTime(job, (Host) host);
             job.setFileTransferTime(fileTransferTime);
             double estimatedProcessTime = scheduler.cloudletSubmit(cloudlet, fileTransferTime);
+            changedHostSet.add(host);
 
             // if this cloudlet is in the exec queue
             if (estimatedProcessTime > 0.0 && !Double.isInfinite(estimatedProcessTime)) {
-                send(getId(), estimatedProcessTime, CloudActionTags.VM_DATACENTER_EVENT);
+                scheduleWakeUp(estimatedProcessTime);
             } else {
-                log.trace("{} {}: {} #{} is paused because not enough free PEs on {} #{}", CloudSim.clock(), getName(), cloudlet.getClass().getSimpleName(), cloudlet.getCloudletId(), vm.getClassName(), vm.getId());
+                log.trace("{} {}: {} #{} is paused because not enough free PEs on {} #{}", getContext().clock(), getName(), cloudlet.getClass().getSimpleName(), cloudlet.getCloudletId(), vm.getClassName(), vm.getId());
             }
             if (ack) {
-                int[] data = new int[3];
-                data[0] = getId();
-                data[1] = cloudlet.getCloudletId();
-                data[2] = CloudSimTags.TRUE;
-
-                sendNow(cloudlet.getUserId(), CloudActionTags.CLOUDLET_SUBMIT_ACK, data);
+                sendValuesNow(cloudlet.getUserId(), CloudActionTags.CLOUDLET_SUBMIT_ACK, getId(), cloudlet.getCloudletId(), CloudSimTags.TRUE);
             }
         } catch (ClassCastException c) {
-            log.error("{}: {}: processCloudletSubmit(): ClassCastException error.", CloudSim.clock(), getName());
+            log.error("{}: {}: processCloudletSubmit(): ClassCastException error.", getContext().clock(), getName());
             c.printStackTrace();
         } catch (Exception e) {
-            log.error("{}: {}: processCloudletSubmit(): Exception error.", CloudSim.clock(), getName());
+            log.error("{}: {}: processCloudletSubmit(): Exception error.", getContext().clock(), getName());
             e.printStackTrace();
         }
+    }
 
+
+    @Override
+    public void processEvent(SimEvent ev) {
+        if (ev.getTag() == CloudActionTags.VM_DATACENTER_EVENT && ev.hasValues()) {
+            if (ev.getLongValue(0) != wakeUpId) {
+                skippedWakeUpCount++;
+                return;
+            }
+            wakeUpTime = Double.MAX_VALUE;
+            wakeUpCount++;
+        }
+        super.processEvent(ev);
+    }
+
+
+    /**
+     * Updates the cloudlets of the hosts whose next cloudlet is due, the other hosts have nothing to
+     * finish yet. The hosts marked by {@link #markHostChanged} are updated even within the min time
+     * between events, as their vms are about to get or lose work. Then wakes up this datacenter when
+     * the next cloudlet of any host is expected to finish, unless an earlier wake-up is already pending.
+     */
+    @Override
+    protected void updateCloudletProcessing() {
+        double clock = getContext().clock();
+        double minTimeBetweenEvents = getContext().getMinTimeBetweenEvents();
+        // R: for term is to allow loop at simulation start. Otherwise, one initial
+        // simulation step is skipped and schedulers are not properly initialized
+        boolean due = clock < 0.111 || clock >= getLastProcessTime() + minTimeBetweenEvents;
+        if (!due && changedHostSet.isEmpty()) {
+            if (wakeUpTime == Double.MAX_VALUE && hostWakeUpTimeMap.values().stream().anyMatch(time -> time != Double.MAX_VALUE)) {
+                // too early to update, wake up again once the hosts can be updated
+                scheduleWakeUp(getLastProcessTime() + minTimeBetweenEvents + 0.01 - clock);
+            }
+            return;
+        }
+        double smallerTime = Double.MAX_VALUE;
+        for (HostEntity host : getVmAllocationPolicy().getHostList()) {
+            Double time = hostWakeUpTimeMap.get(host);
+            if (changedHostSet.contains(host) || (due && (time == null || time <= clock + minTimeBetweenEvents))) {
+                time = host.updateCloudletsProcessing(clock);
+                hostWakeUpTimeMap.put(host, time);
+            }
+            if (time != null && time < smallerTime) {
+                smallerTime = time;
+            }
+        }
+        changedHostSet.clear();
+        // gurantees a minimal interval before scheduling the event
+        if (smallerTime < clock + minTimeBetweenEvents + 0.01) {
+            smallerTime = clock + minTimeBetweenEvents + 0.01;
+        }
+        if (smallerTime != Double.MAX_VALUE) {
+            scheduleWakeUp(smallerTime - clock);
+        }
+        if (due) {
+            setLastProcessTime(clock);
+        }
+    }
+
+
+    /**
+     * Update the host of the vm at the next update, whether its next cloudlet is due or not
+     */
+    private void markHostChanged(int vmId, int userId) {
+        HostEntity host = getVmAllocationPolicy().getHost(vmId, userId);
+        if (host != null) {
+            changedHostSet.add(host);
+        }
+    }
+
+
+    /**
+     * Schedule a VM_DATACENTER_EVENT after the delay, which supersedes the pending one if it is earlier
+     */
+    private void scheduleWakeUp(double delay) {
+        double time = getContext().clock() + delay;
+        if (time < wakeUpTime) {
+            wakeUpTime = time;
+            scheduleValues(getId(), delay, CloudActionTags.VM_DATACENTER_EVENT, ++wakeUpId, 0, 0);
+        }
+    }
+
+
+    /**
+     * Processes the workflow events, see {@link WorkflowActionTags}
+     *
+     * @param ev information about the event just happened
+     */
+    @Override
+    protected void processOtherEvent(SimEvent ev) {
+        if (ev.getTag() == WorkflowActionTags.CLOUDLET_SUBMIT_BATCH) {
+            processCloudletSubmitBatch(ev);
+        } else if (ev.getTag() == WorkflowActionTags.JOB_FAULT) {
+            processJobFault(ev);
+        } else {
+            super.processOtherEvent(ev);
+        }
+    }
+
+
+    /**
+     * Processes the transient fault of a job scheduled by its {@link DvfsCloudletSchedulerSpaceShared}.
+     * Most jobs finish before their fault, so a stale fault is dropped before updating any host.
+     *
+     * @param ev information about the event just happened
+     */
+    private void processJobFault(SimEvent ev) {
+        Job job = (Job) ev.getData();
+        DvfsCloudletSchedulerSpaceShared scheduler = (DvfsCloudletSchedulerSpaceShared) job.getFv().getVm().getCloudletScheduler();
+        if (!scheduler.hasPendingFault(job)) {
+            return;
+        }
+        markHostChanged(job.getGuestId(), job.getUserId());
+        updateCloudletProcessing();
+        scheduler.processJobFault(job, getContext().clock());
         checkCloudletCompletion();
     }
 
@@ -0,0 +1,387 @@
+package com.qiujie.entity;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * The topology of a {@link Dax} compiled once and shared by all the workflows created from it.
+ * <p>
+ * Jobs are indexed in the order of {@link Dax#getJobList()}, and every relation is stored in CSR
+ * form: the entries of job i are [offsets[i], offsets[i + 1]) of the index arrays. File sizes are
+ * kept in primitive arrays. Output and predecessor input files are never modified during a
+ * simulation, so their lists are built once and shared; {@link #instantiate()} only allocates the
+ * per-run {@link Job}s, their relation lists and their local input files, whose location is
+ * chosen by each run.
+ * <p>
+ * The same arrays are the binary dax format written by {@link #write(OutputStream)} and read back
+ * by {@link #read(ByteBuffer)} (big-endian, names interned in a string table):
+ * <pre>
+ * int magic, int version
+ * int strings, strings x (int length, UTF-8 bytes)
+ * int name, int jobNum
+ * int[jobNum] job names, long[jobNum] lengths, int[jobNum] depths
+ * parents:  int[jobNum + 1] offsets, int[] parent indices
+ * children: int[jobNum + 1] offsets, int[] child indices
+ * local input files: int[jobNum + 1] offsets, int[] names, double[] sizes
+ * output files:      int[jobNum + 1] offsets, int[] names, double[] sizes
+ * pred input files:  int[jobNum + 1] offsets, int[] parent indices,
+ *                    int[entries + 1] offsets, int[] names, double[] sizes
+ * </pre>
+ */
+public class CompiledDax {
+
+    public static final int MAGIC = 0x42444158; // BDAX
+    public static final int VERSION = 1;
+
+    private final String name;
+    private final int jobNum;
+
+    private final String[] jobNames;
+    private final long[] lengths;
+    private final int[] depths;
+
+    private final int[] parentOffsets;
+    private final int[] parents;
+
+    private final int[] childOffsets;
+    private final int[] children;
+
+    private final FileTable localFiles;
+    private final FileTable outputFiles;
+
+    // per job, the parents it reads pred input files from; per entry, the files
+    private final int[] predOffsets;
+    private final int[] predParents;
+    private final FileTable predFiles;
+
+    // shared by all instances
+    private final List<List<File>> outputFileLists;
+    private final List<List<File>> predFileLists;
+
+    // job indices in the order of Workflow.getJobList()
+    private final int[] listOrder;
+
+    /**
+     * Files grouped in CSR form, by job or by pred entry
+     */
+    private record FileTable(int[] offsets, String[] names, double[] sizes) {
+
+        int size(int i) {
+            return offsets[i + 1] - offsets[i];
+        }
+
+        List<File> toFileList(int i) {
+            List<File> list = new ArrayList<>(size(i));
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                list.add(new File(names[k], sizes[k]));
+            }
+            return list;
+        }
+
+        List<Dax.File> toDaxFileList(int i) {
+            List<Dax.File> list = new ArrayList<>(size(i));
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                list.add(new Dax.File().setName(names[k]).setSize(sizes[k]));
+            }
+            return list;
+        }
+
+        static FileTable of(List<List<Dax.File>> groups) {
+            int[] offsets = new int[groups.size() + 1];
+            for (int i = 0; i < groups.size(); i++) {
+                offsets[i + 1] = offsets[i] + groups.get(i).size();
+            }
+            String[] names = new String[offsets[groups.size()]];
+            double[] sizes = new double[names.length];
+            int k = 0;
+            for (List<Dax.File> group : groups) {
+                for (Dax.File daxFile : group) {
+                    names[k] = daxFile.getName();
+                    sizes[k++] = daxFile.getSize();
+                }
+            }
+            return new FileTable(offsets, names, sizes);
+        }
+    }
+
+    private CompiledDax(String name, String[] jobNames, long[] lengths, int[] depths, int[] parentOffsets, int[] parents, int[] childOffsets, int[] children,
+                        FileTable localFiles, FileTable outputFiles, int[] predOffsets, int[] predParents, FileTable predFiles) {
+        this.name = name;
+        this.jobNum = jobNames.length;
+        this.jobNames = jobNames;
+        this.lengths = lengths;
+        this.depths = depths;
+        this.parentOffsets = parentOffsets;
+        this.parents = parents;
+        this.childOffsets = childOffsets;
+        this.children = children;
+        this.localFiles = localFiles;
+        this.outputFiles = outputFiles;
+        this.predOffsets = predOffsets;
+        this.predParents = predParents;
+        this.predFiles = predFiles;
+
+        this.outputFileLists = new ArrayList<>(jobNum);
+        for (int i = 0; i < jobNum; i++) {
+            outputFileLists.add(Collections.unmodifiableList(outputFiles.toFileList(i)));
+        }
+        this.predFileLists = new ArrayList<>(predParents.length);
+        for (int i = 0; i < predParents.length; i++) {
+            predFileLists.add(Collections.unmodifiableList(predFiles.toFileList(i)));
+        }
+
+        // the workflow job list used to be the values of a HashMap keyed by job name, keep its order
+        Map<String, Integer> indexMap = new HashMap<>();
+        for (int i = 0; i < jobNum; i++) {
+            indexMap.put(jobNames[i], i);
+        }
+        this.listOrder = indexMap.values().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static CompiledDax compile(Dax dax) {
+        List<Dax.Job> daxJobList = dax.getJobList();
+        int jobNum = daxJobList.size();
+        Map<String, Integer> indexMap = new HashMap<>();
+        for (int i = 0; i < jobNum; i++) {
+            indexMap.put(daxJobList.get(i).getName(), i);
+        }
+        String[] jobNames = new String[jobNum];
+        long[] lengths = new long[jobNum];
+        int[] depths = new int[jobNum];
+        List<List<Integer>> parentLists = new ArrayList<>(jobNum);
+        List<List<Integer>> childLists = new ArrayList<>(jobNum);
+        List<List<Dax.File>> localFileLists = new ArrayList<>(jobNum);
+        List<List<Dax.File>> outputFileLists = new ArrayList<>(jobNum);
+        int[] predOffsets = new int[jobNum + 1];
+        List<Integer> predParentList = new ArrayList<>();
+        List<List<Dax.File>> predFileLists = new ArrayList<>();
+        for (int i = 0; i < jobNum; i++) {
+            Dax.Job daxJob = daxJobList.get(i);
+            jobNames[i] = daxJob.getName();
+            lengths[i] = daxJob.getLength();
+            depths[i] = daxJob.getDepth();
+            parentLists.add(daxJob.getParentList().stream().map(indexMap::get).toList());
+            childLists.add(daxJob.getChildList().stream().map(indexMap::get).toList());
+            localFileLists.add(daxJob.getLocalInputFileList());
+            outputFileLists.add(daxJob.getOutputFileList());
+            for (Map.Entry<String, List<Dax.File>> entry : daxJob.getPredInputFilesMap().entrySet()) {
+                predParentList.add(indexMap.get(entry.getKey()));
+                predFileLists.add(entry.getValue());
+            }
+            predOffsets[i + 1] = predParentList.size();
+        }
+        int[][] parentCsr = toCsr(parentLists);
+        int[][] childCsr = toCsr(childLists);
+        return new CompiledDax(dax.getName(), jobNames, lengths, depths, parentCsr[0], parentCsr[1], childCsr[0], childCsr[1],
+                FileTable.of(localFileLists), FileTable.of(outputFileLists),
+                predOffsets, predParentList.stream().mapToInt(Integer::intValue).toArray(), FileTable.of(predFileLists));
+    }
+
+    private static int[][] toCsr(List<List<Integer>> lists) {
+        int[] offsets = new int[lists.size() + 1];
+        for (int i = 0; i < lists.size(); i++) {
+            offsets[i + 1] = offsets[i] + lists.get(i).size();
+        }
+        int[] indices = new int[offsets[lists.size()]];
+        int k = 0;
+        for (List<Integer> list : lists) {
+            for (int index : list) {
+                indices[k++] = index;
+            }
+        }
+        return new int[][]{offsets, indices};
+    }
+
+    /**
+     * create a new workflow over the shared topology
+     */
+    public Workflow instantiate() {
+        Job[] jobs = new Job[jobNum];
+        for (int i = 0; i < jobNum; i++) {
+            jobs[i] = new Job(jobNames[i], lengths[i],
+                    new ArrayList<>(parentOffsets[i + 1] - parentOffsets[i]),
+                    new ArrayList<>(childOffsets[i + 1] - childOffsets[i]),
+                    HashMap.newHashMap(predOffsets[i + 1] - predOffsets[i]),
+                    localFiles.toFileList(i),
+                    outputFileLists.get(i))
+                    .setDepth(depths[i]);
+        }
+        for (int i = 0; i < jobNum; i++) {
+            Job job = jobs[i];
+            for (int k = parentOffsets[i]; k < parentOffsets[i + 1]; k++) {
+                job.getParentList().add(jobs[parents[k]]);
+            }
+            for (int k = childOffsets[i]; k < childOffsets[i + 1]; k++) {
+                job.getChildList().add(jobs[children[k]]);
+            }
+            for (int k = predOffsets[i]; k < predOffsets[i + 1]; k++) {
+                job.getPredInputFilesMap().put(jobs[predParents[k]], predFileLists.get(k));
+            }
+        }
+        List<Job> jobList = new ArrayList<>(jobNum);
+        for (int i : listOrder) {
+            jobList.add(jobs[i]);
+        }
+        return new Workflow(name, jobList);
+    }
+
+    /**
+     * convert back to the dax model
+     */
+    public Dax toDax() {
+        List<Dax.Job> daxJobList = new ArrayList<>(jobNum);
+        for (int i = 0; i < jobNum; i++) {
+            Dax.Job daxJob = new Dax.Job().setName(jobNames[i]).setLength(lengths[i]).setDepth(depths[i]);
+            for (int k = parentOffsets[i]; k < parentOffsets[i + 1]; k++) {
+                daxJob.getParentList().add(jobNames[parents[k]]);
+            }
+            for (int k = childOffsets[i]; k < childOffsets[i + 1]; k++) {
+                daxJob.getChildList().add(jobNames[children[k]]);
+            }
+            daxJob.setLocalInputFileList(localFiles.toDaxFileList(i));
+            daxJob.setOutputFileList(outputFiles.toDaxFileList(i));
+            for (int k = predOffsets[i]; k < predOffsets[i + 1]; k++) {
+                daxJob.getPredInputFilesMap().put(jobNames[predParents[k]], predFiles.toDaxFileList(k));
+            }
+            daxJobList.add(daxJob);
+        }
+        return new Dax(name, daxJobList);
+    }
+
+    /**
+     * write the binary dax format, see the class comment
+     */
+    public void write(OutputStream os) throws IOException {
+        Map<String, Integer> stringMap = new LinkedHashMap<>();
+        stringMap.put(name, 0);
+        for (String jobName : jobNames) {
+            stringMap.putIfAbsent(jobName, stringMap.size());
+        }
+        for (FileTable table : List.of(localFiles, outputFiles, predFiles)) {
+            for (String fileName : table.names()) {
+                stringMap.putIfAbsent(fileName, stringMap.size());
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(stringMap.size());
+        for (String string : stringMap.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(stringMap.get(name));
+        out.writeInt(jobNum);
+        writeStrings(out, jobNames, stringMap);
+        for (long length : lengths) {
+            out.writeLong(length);
+        }
+        writeInts(out, depths);
+        writeInts(out, parentOffsets);
+        writeInts(out, parents);
+        writeInts(out, childOffsets);
+        writeInts(out, children);
+        writeFileTable(out, localFiles, stringMap);
+        writeFileTable(out, outputFiles, stringMap);
+        writeInts(out, predOffsets);
+        writeInts(out, predParents);
+        writeFileTable(out, predFiles, stringMap);
+        out.flush();
+    }
+
+    private static void writeInts(DataOutputStream out, int[] array) throws IOException {
+        for (int value : array) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] array, Map<String, Integer> stringMap) throws IOException {
+        for (String value : array) {
+            out.writeInt(stringMap.get(value));
+        }
+    }
+
+    private static void writeFileTable(DataOutputStream out, FileTable table, Map<String, Integer> stringMap) throws IOException {
+        writeInts(out, table.offsets());
+        writeStrings(out, table.names(), stringMap);
+        for (double size : table.sizes()) {
+            out.writeDouble(size);
+        }
+    }
+
+    /**
+     * read the binary dax format from the position of the buffer, e.g. a slice of a mapped file.
+     * The arrays are bulk copied out of the buffer, whose position is moved past the dax.
+     */
+    public static CompiledDax read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalStateException("Not a binary dax");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported binary dax version " + version);
+        }
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        String name = strings[buffer.getInt()];
+        int jobNum = buffer.getInt();
+        String[] jobNames = readStrings(buffer, jobNum, strings);
+        long[] lengths = new long[jobNum];
+        buffer.asLongBuffer().get(lengths);
+        buffer.position(buffer.position() + jobNum * Long.BYTES);
+        int[] depths = readInts(buffer, jobNum);
+        int[] parentOffsets = readInts(buffer, jobNum + 1);
+        int[] parents = readInts(buffer, parentOffsets[jobNum]);
+        int[] childOffsets = readInts(buffer, jobNum + 1);
+        int[] children = readInts(buffer, childOffsets[jobNum]);
+        FileTable localFiles = readFileTable(buffer, jobNum, strings);
+        FileTable outputFiles = readFileTable(buffer, jobNum, strings);
+        int[] predOffsets = readInts(buffer, jobNum + 1);
+        int[] predParents = readInts(buffer, predOffsets[jobNum]);
+        FileTable predFiles = readFileTable(buffer, predParents.length, strings);
+        return new CompiledDax(name, jobNames, lengths, depths, parentOffsets, parents, childOffsets, children, localFiles, outputFiles, predOffsets, predParents, predFiles);
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int length) {
+        int[] array = new int[length];
+        buffer.asIntBuffer().get(array);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+        return array;
+    }
+
+    private static String[] readStrings(ByteBuffer buffer, int length, String[] strings) {
+        int[] refs = readInts(buffer, length);
+        String[] array = new String[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = strings[refs[i]];
+        }
+        return array;
+    }
+
+    private static FileTable readFileTable(ByteBuffer buffer, int groups, String[] strings) {
+        int[] offsets = readInts(buffer, groups + 1);
+        String[] names = readStrings(buffer, offsets[groups], strings);
+        double[] sizes = new double[offsets[groups]];
+        buffer.asDoubleBuffer().get(sizes);
+        buffer.position(buffer.position() + sizes.length * Double.BYTES);
+        return new FileTable(offsets, names, sizes);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getJobNum() {
+        return jobNum;
+    }
+}
@@ -0,0 +1,92 @@
+package com.qiujie.entity;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A cyclic electricity price curve: prices ($/kWh) of consecutive slots of the same length, repeated
+ * after the last slot. The prices are summed into prefix sums once, so the cost and the average price
+ * of any interval take constant time whatever the resolution of the curve, e.g. 12 hourly prices or
+ * 96 quarter-hourly prices of a day. Times are in seconds from the start of the simulation.
+ */
+public class ElecTariff {
+
+    @Getter
+    private final List<Double> prices;
+
+    // seconds covered by each price
+    @Getter
+    private final double slotDuration;
+
+    private final double[] slotPrices;
+
+    // prefixSums[i] = sum of the prices of the slots before slot i, prefixSums[n] is one cycle
+    private final double[] prefixSums;
+
+    public ElecTariff(List<Double> prices, double slotDuration) {
+        if (prices.isEmpty() || slotDuration <= 0) {
+            throw new IllegalArgumentException("A tariff needs at least one price and a positive slot duration");
+        }
+        this.prices = List.copyOf(prices);
+        this.slotDuration = slotDuration;
+        this.slotPrices = prices.stream().mapToDouble(Double::doubleValue).toArray();
+        this.prefixSums = new double[slotPrices.length + 1];
+        for (int i = 0; i < slotPrices.length; i++) {
+            prefixSums[i + 1] = prefixSums[i] + slotPrices[i];
+        }
+    }
+
+    /**
+     * Calculate the electricity cost
+     *
+     * @param startTime s
+     * @param endTime   s
+     * @param power     watt
+     */
+    public double calculateElecCost(double startTime, double endTime, double power) {
+        if (startTime > endTime) {
+            throw new IllegalStateException(String.format("startTime > endTime: %s > %s", startTime, endTime));
+        }
+        return power * integrate(startTime, endTime) / 1000.0; // kWh * $/kWh
+    }
+
+    /**
+     * calculate avg elec price, the price at startTime for an empty interval
+     *
+     * @param startTime s
+     * @param endTime   s
+     */
+    public double calculateAvgElecPrice(double startTime, double endTime) {
+        if (startTime >= endTime) {
+            int slot = (int) (Math.floor(startTime / slotDuration) % slotPrices.length);
+            return slotPrices[slot];
+        }
+        return integrate(startTime, endTime) / ((endTime - startTime) / 3600.0);
+    }
+
+    /**
+     * @return the integral of the price over [startTime, endTime] in $/kWh * h
+     */
+    private double integrate(double startTime, double endTime) {
+        int n = slotPrices.length;
+        long startSlot = (long) Math.floor(startTime / slotDuration);
+        long endSlot = (long) Math.floor(endTime / slotDuration);
+        double slots;
+        if (startSlot >= endSlot) {
+            slots = (endTime - startTime) / slotDuration * slotPrices[(int) (startSlot % n)];
+        } else {
+            // the partial first and last slots, and the whole slots between them from the prefix sums
+            double first = ((startSlot + 1) * slotDuration - startTime) / slotDuration * slotPrices[(int) (startSlot % n)];
+            double last = (endTime - endSlot * slotDuration) / slotDuration * slotPrices[(int) (endSlot % n)];
+            long wholeSlots = endSlot - startSlot - 1;
+            int from = (int) ((startSlot + 1) % n);
+            int rest = (int) (wholeSlots % n);
+            double restSum = from + rest <= n
+                    ? prefixSums[from + rest] - prefixSums[from]
+                    : prefixSums[n] - prefixSums[from] + prefixSums[from + rest - n];
+            slots = first + (wholeSlots / n) * prefixSums[n] + restSum + last;
+        }
+        return slots * slotDuration / 3600.0;
+    }
+}
@@ -39,6 +39,9 @@ public class Job extends Cloudlet {
 
     private int depth;
 
+    // position in the job list of its workflow
+    private int index;
+
     private double fileTransferTime;
 
     private int retryCount;
@@ -56,16 +59,23 @@ public class Job extends Cloudlet {
     }
 
     public Job(String name, long length) {
+        this(name, length, new ArrayList<>(), new ArrayList<>(), new HashMap<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    /**
+     * create a job over prepared lists, e.g. sized lists or lists shared with other workflow instances
+     */
+    public Job(String name, long length, List<Job> parentList, List<Job> childList, Map<Job, List<File>> predInputFilesMap, List<File> localInputFileList, List<File> outputFileList) {
         this(nextId.getAndIncrement(), length, 1, 1, 1, new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull(), false);
         this.name = name;
         this.length = length;
         this.retryCount = 0;
         this.elecCost = 0;
-        this.parentList = new ArrayList<>();
-        this.childList = new ArrayList<>();
-        this.predInputFilesMap = new HashMap<>();
-        this.localInputFileList = new ArrayList<>();
-        this.outputFileList = new ArrayList<>();
+        this.parentList = parentList;
+        this.childList = childList;
+        this.predInputFilesMap = predInputFilesMap;
+        this.localInputFileList = localInputFileList;
+        this.outputFileList = outputFileList;
     }
 
     public void updateRetryCount() {
@@ -33,6 +33,9 @@ public class Workflow {
         this.id = nextId.getAndIncrement();
         this.name = name;
         this.jobList = jobList;
+        for (int i = 0; i < jobList.size(); i++) {
+            jobList.get(i).setIndex(i);
+        }
         this.jobNum = jobList.size();
         this.length = jobList.stream().mapToLong(Job::getLength).sum();
         this.depth = jobList.stream().mapToInt(Job::getDepth).max().getAsInt();
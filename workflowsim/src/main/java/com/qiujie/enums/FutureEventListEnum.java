@@ -0,0 +1,11 @@
+package com.qiujie.enums;
+
+/**
+ * The future event list used by the CloudSim simulation
+ */
+public enum FutureEventListEnum {
+    // binary heap, O(log n) insert/poll
+    HEAP,
+    // calendar queue, O(1) amortised insert/poll and cancellation indexed by source and tag
+    CALENDAR
+}
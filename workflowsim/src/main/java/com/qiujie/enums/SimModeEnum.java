@@ -0,0 +1,11 @@
+package com.qiujie.enums;
+
+/**
+ * How {@link com.qiujie.starter.ExperimentStarter} runs the simulations
+ */
+public enum SimModeEnum {
+    // one child JVM per worker, SimParam and Result are exchanged with Kryo over loopback sockets, all served by one selector
+    PROCESS,
+    // one thread per worker inside the parent JVM
+    THREAD
+}
@@ -0,0 +1,13 @@
+package com.qiujie.enums;
+
+import org.cloudbus.cloudsim.core.CloudSimTags;
+
+/**
+ * The tags of the events sent between the workflow entities, besides the CloudSim ones
+ */
+public enum WorkflowActionTags implements CloudSimTags {
+    // the broker submits the cloudlets in the event data, a list, to the datacenter at once
+    CLOUDLET_SUBMIT_BATCH,
+    // a transient fault hits the executing job in the event data
+    JOB_FAULT
+}
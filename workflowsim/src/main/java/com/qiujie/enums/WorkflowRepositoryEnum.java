@@ -0,0 +1,11 @@
+package com.qiujie.enums;
+
+/**
+ * Where the simulations read the preprocessed workflows and CPU models from
+ */
+public enum WorkflowRepositoryEnum {
+    // memory-mapped archive file, shared by all processes through the page cache
+    FILE,
+    // redis server at Constants.HOST:Constants.PORT
+    REDIS
+}
@@ -1,7 +1,6 @@
 package com.qiujie.example;
 
 import ch.qos.logback.classic.Level;
-import com.qiujie.aop.ClockModifier;
 import com.qiujie.entity.Job;
 import com.qiujie.entity.Param;
 import com.qiujie.entity.Workflow;
@@ -29,9 +28,9 @@ import static com.qiujie.Constants.*;
 public class Example01 {
     public static void main(String[] args) throws Exception {
         long send = System.currentTimeMillis();
-        ClockModifier.modifyClockMethod();
         org.cloudbus.cloudsim.Log.disable();
         CloudSim.init(USERS, Calendar.getInstance(), TRACE_FLAG, MIN_TIME_BETWEEN_EVENTS);
+        CloudSim.getContext().setClockResolution(CLOCK_RESOLUTION);
         Log.setLevel(Level.TRACE);
         VMS = 25;
         String dax = "Montage_50";
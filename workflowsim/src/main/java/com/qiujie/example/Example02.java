@@ -2,7 +2,6 @@
 package com.qiujie.example;
 
 import ch.qos.logback.classic.Level;
-import com.qiujie.aop.ClockModifier;
 import com.qiujie.entity.Job;
 import com.qiujie.entity.Param;
 import com.qiujie.entity.Workflow;
@@ -29,9 +28,9 @@ public class Example02 {
     public static void main(String[] args) throws Exception {
         long send = System.currentTimeMillis();
         ContinuousDistribution random = new UniformDistr(0, 1, send);
-        ClockModifier.modifyClockMethod();
         org.cloudbus.cloudsim.Log.disable();
         CloudSim.init(USERS, Calendar.getInstance(), TRACE_FLAG, MIN_TIME_BETWEEN_EVENTS);
+        CloudSim.getContext().setClockResolution(CLOCK_RESOLUTION);
         Log.setLevel(Level.INFO);
         List<String> daxList = List.of(
                 "Genome_50",
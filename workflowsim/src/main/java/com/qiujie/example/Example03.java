@@ -2,7 +2,6 @@
 package com.qiujie.example;
 
 import ch.qos.logback.classic.Level;
-import com.qiujie.aop.ClockModifier;
 import com.qiujie.entity.Job;
 import com.qiujie.entity.Param;
 import com.qiujie.entity.Workflow;
@@ -29,9 +28,9 @@ public class Example03 {
     public static void main(String[] args) throws Exception {
         long send = System.currentTimeMillis();
         ContinuousDistribution random = new UniformDistr(0, 1, send);
-        ClockModifier.modifyClockMethod();
         org.cloudbus.cloudsim.Log.disable();
         CloudSim.init(2, Calendar.getInstance(), TRACE_FLAG, MIN_TIME_BETWEEN_EVENTS);
+        CloudSim.getContext().setClockResolution(CLOCK_RESOLUTION);
         Log.setLevel(Level.TRACE);
         List<String> daxList = List.of(
                 "Montage_100",
@@ -75,5 +74,6 @@ public class Example03 {
         String className = new Object() {
         }.getClass().getEnclosingClass().getSimpleName();
         System.out.println(className + " take " + (System.currentTimeMillis() - send) / 1000.0 + "s");
+        System.out.println(className + " processed " + CloudSim.getProcessedEvents() + " events, " + String.format("%.0f", CloudSim.getEventsPerSecond()) + " events/s");
     }
 }
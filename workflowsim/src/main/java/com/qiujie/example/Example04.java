@@ -5,7 +5,6 @@ import ch.qos.logback.classic.Level;
 import com.qiujie.comparator.DepthComparator;
 import com.qiujie.comparator.JobNumComparator;
 import com.qiujie.comparator.LengthComparator;
-import com.qiujie.aop.ClockModifier;
 import com.qiujie.entity.Param;
 import com.qiujie.entity.Result;
 import com.qiujie.entity.SimParam;
@@ -31,7 +30,6 @@ public class Example04 {
         String name = new Object() {
         }.getClass().getEnclosingClass().getSimpleName();
         long seed = System.currentTimeMillis();
-        ClockModifier.modifyClockMethod();
         org.cloudbus.cloudsim.Log.disable();
         Log.setLevel(Level.DEBUG);
         List<String> daxList = List.of(
@@ -0,0 +1,215 @@
+package com.qiujie.planner;
+
+import com.qiujie.entity.ExecWindow;
+import com.qiujie.entity.Fv;
+
+/**
+ * The planned exec windows of one vm, ordered by start time.
+ * <p>
+ * The windows are kept in a treap with implicit keys (the position of a window), so a window is
+ * inserted at a position without shifting the ones after it. Each node also holds the finish time of
+ * the previous window, and its subtree tracks the max start time, the min previous finish time and
+ * the max gap before a window, which lets {@link #findExecWindow} skip the subtrees where no gap can
+ * fit the job. Finding and inserting a window take O(log n) expected time.
+ */
+public class ExecTimeline {
+
+    private static final class Node {
+        private final ExecWindow window;
+        private final int priority;
+        // finish time of the previous window, +∞ for the first window
+        private double prevFinish;
+        private Node left;
+        private Node right;
+        // subtree aggregates
+        private int size;
+        private double maxStart;
+        private double minPrevFinish;
+        private double maxGap;
+
+        private Node(ExecWindow window, int priority) {
+            this.window = window;
+            this.priority = priority;
+        }
+    }
+
+    private Node root;
+    // xorshift state of the treap priorities, fixed so the tree shape is reproducible
+    private int seed = 0x2545F491;
+
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Find the earliest window of execTime on this vm which starts no earlier than readyTime.
+     * Gives the same window and insert position as a linear scan over the gaps.
+     */
+    public ExecWindow findExecWindow(Fv fv, double readyTime, double execTime) {
+        double finishTime = Double.MAX_VALUE;
+        int insertPos = size(); // default to append to the end
+        // consider the first window
+        if (root != null && readyTime + execTime <= first().window.getStartTime()) {
+            finishTime = readyTime + execTime;
+            insertPos = 0;
+        } else {
+            // try to find a gap, the slack keeps the pruning safe from rounding
+            double slack = (Math.abs(root == null ? 0 : root.maxStart) + execTime) * 1e-12;
+            int pos = findGap(root, 0, readyTime, execTime, readyTime + execTime, slack);
+            if (pos >= 0) {
+                Node node = get(pos);
+                finishTime = Math.max(readyTime, node.prevFinish) + execTime;
+                insertPos = pos;
+            }
+            if (finishTime == Double.MAX_VALUE) {
+                double lastWindowFinish = root == null ? readyTime : last().window.getFinishTime();
+                double lastFinish = Math.max(readyTime, lastWindowFinish);
+                finishTime = lastFinish + execTime;
+                insertPos = size();
+            }
+        }
+        return new ExecWindow(finishTime - execTime, finishTime, insertPos, fv);
+    }
+
+    /**
+     * Insert the window at the position, e.g. the insert position given by {@link #findExecWindow}
+     */
+    public void add(int index, ExecWindow window) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node node = new Node(window, nextPriority());
+        node.prevFinish = index == 0 ? Double.POSITIVE_INFINITY : get(index - 1).window.getFinishTime();
+        update(node);
+        root = insert(root, index, node);
+        if (index + 1 < size()) {
+            setPrevFinish(root, index + 1, window.getFinishTime());
+        }
+    }
+
+    /**
+     * @return the position of the first window whose gap before it fits the job, or -1
+     */
+    private static int findGap(Node node, int offset, double readyTime, double execTime, double minFinish, double slack) {
+        if (node == null || node.maxStart < minFinish
+                || (node.minPrevFinish >= readyTime && node.maxGap < execTime - slack)) {
+            return -1;
+        }
+        int pos = findGap(node.left, offset, readyTime, execTime, minFinish, slack);
+        if (pos >= 0) {
+            return pos;
+        }
+        int index = offset + size(node.left);
+        if (Math.max(readyTime, node.prevFinish) + execTime <= node.window.getStartTime()) {
+            return index;
+        }
+        return findGap(node.right, index + 1, readyTime, execTime, minFinish, slack);
+    }
+
+    private Node insert(Node node, int index, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (index <= size(node.left)) {
+            node.left = insert(node.left, index, newNode);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, index - size(node.left) - 1, newNode);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static void setPrevFinish(Node node, int index, double prevFinish) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            setPrevFinish(node.left, index, prevFinish);
+        } else if (index > leftSize) {
+            setPrevFinish(node.right, index - leftSize - 1, prevFinish);
+        } else {
+            node.prevFinish = prevFinish;
+        }
+        update(node);
+    }
+
+    private Node get(int index) {
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private Node first() {
+        Node node = root;
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private Node last() {
+        Node node = root;
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.size = 1;
+        node.maxStart = node.window.getStartTime();
+        node.minPrevFinish = node.prevFinish;
+        node.maxGap = node.window.getStartTime() - node.prevFinish;
+        merge(node, node.left);
+        merge(node, node.right);
+    }
+
+    private static void merge(Node node, Node child) {
+        if (child != null) {
+            node.size += child.size;
+            node.maxStart = Math.max(node.maxStart, child.maxStart);
+            node.minPrevFinish = Math.min(node.minPrevFinish, child.minPrevFinish);
+            node.maxGap = Math.max(node.maxGap, child.maxGap);
+        }
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+}
@@ -13,6 +13,8 @@ import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
 import java.lang.reflect.Constructor;
 import java.util.*;
 
+import static com.qiujie.Constants.*;
+
 
 /**
  * Performance-effective and low-complexity task scheduling for heterogeneous computing
@@ -21,10 +23,15 @@ import java.util.*;
 @Slf4j
 public class HEFTPlanner extends WorkflowPlannerAbstract {
 
-    // record local data transfer time
-    private Map<Job, Map<Vm, Double>> localDataTransferTimeMap;
-    private Map<Job, Double> finishTimeMap;
-    private Map<Job, Double> upwardRankMap;
+    // record local data transfer time, indexed by job index * vm num + vm index
+    private double[] localDataTransferTimes;
+    // indexed by job index
+    private double[] finishTimes;
+    private double[] upwardRanks;
+    // vm indexes grouped by cpu and datacenter
+    private int[][] vmClasses;
+    // ids of the hosts holding a parent or a local input file of the job being allocated
+    private final BitSet dataHosts = new BitSet();
 
     public HEFTPlanner(ContinuousDistribution random, Param param) {
         super(random, param);
@@ -55,54 +62,58 @@ public class HEFTPlanner extends WorkflowPlannerAbstract {
     /**
      * calculate predicted average local data transfer time
      */
-    private Map<Job, Double> calculateAvgLocalDataTransferTime(Workflow workflow) {
-        Map<Job, Double> avgLocalDataTransferTimeMap = new HashMap<>();
-        localDataTransferTimeMap = new HashMap<>();
+    private double[] calculateAvgLocalDataTransferTime(Workflow workflow) {
+        int vmNum = getVmList().size();
+        double[] avgLocalDataTransferTimes = new double[workflow.getJobNum()];
+        localDataTransferTimes = new double[workflow.getJobNum() * vmNum];
         for (Job job : workflow.getJobList()) {
+            int base = job.getIndex() * vmNum;
             double total = 0.0;
-            Map<Vm, Double> jobLocalDataTransferTimeMap = new HashMap<>();
-            for (Vm vm : getVmList()) {
-                double temp = ExperimentUtil.calculateLocalDataTransferTime(job, (Host) vm.getHost());
-                jobLocalDataTransferTimeMap.put(vm, temp);
+            for (int v = 0; v < vmNum; v++) {
+                double temp = ExperimentUtil.calculateLocalDataTransferTime(job, (Host) getVmList().get(v).getHost());
+                localDataTransferTimes[base + v] = temp;
                 total += temp;
             }
-            avgLocalDataTransferTimeMap.put(job, total / getVmList().size());
-            localDataTransferTimeMap.put(job, jobLocalDataTransferTimeMap);
+            avgLocalDataTransferTimes[job.getIndex()] = total / vmNum;
         }
-        return avgLocalDataTransferTimeMap;
+        return avgLocalDataTransferTimes;
     }
 
     /**
-     * calculate predicted upward rank
+     * calculate predicted upward rank, the jobs are visited from the deepest and each job pushes
+     * its rank plus the transfer time from a parent to that parent
      *
-     * @param avgLocalDataTransferTimeMap
-     * @param avgPredecessorDataTransferTimeMap
+     * @param avgLocalDataTransferTimes
+     * @param avgPredecessorDataTransferTimes
      * @param avgMips
      * @param workflow
      */
-    private double calculateUpwardRank(Map<Job, Double> avgLocalDataTransferTimeMap, Map<Job, Map<Job, Double>> avgPredecessorDataTransferTimeMap, double avgMips, Workflow workflow) {
-        upwardRankMap = new HashMap<>();
+    private double calculateUpwardRank(double[] avgLocalDataTransferTimes, double[][] avgPredecessorDataTransferTimes, double avgMips, Workflow workflow) {
+        upwardRanks = new double[workflow.getJobNum()];
+        // max over the children of (child rank + transfer time from this job to the child)
+        double[] maxSuccessorRanks = new double[workflow.getJobNum()];
         List<Job> list = workflow.getJobList().stream().sorted(Comparator.comparingDouble(Job::getDepth).reversed()).toList();
         double maxUpwardRank = 0;
         for (Job job : list) {
-            double max = 0.0;
-            for (Job child : job.getChildList()) {
-                double temp = upwardRankMap.get(child) + avgPredecessorDataTransferTimeMap.get(child).get(job);
-                max = Math.max(max, temp);
-            }
-            double upwardRank = max + avgLocalDataTransferTimeMap.get(job) + job.getLength() / avgMips;
+            int i = job.getIndex();
+            double upwardRank = maxSuccessorRanks[i] + avgLocalDataTransferTimes[i] + job.getLength() / avgMips;
             maxUpwardRank = Math.max(maxUpwardRank, upwardRank);
-            upwardRankMap.put(job, upwardRank);
+            upwardRanks[i] = upwardRank;
+            List<Job> parentList = job.getParentList();
+            for (int k = 0; k < parentList.size(); k++) {
+                int p = parentList.get(k).getIndex();
+                maxSuccessorRanks[p] = Math.max(maxSuccessorRanks[p], upwardRank + avgPredecessorDataTransferTimes[i][k]);
+            }
         }
         return maxUpwardRank;
     }
 
 
     private void calculateUpwardRank(Workflow workflow) {
-        Map<Job, Double> avgLocalDataTransferTimeMap = calculateAvgLocalDataTransferTime(workflow);
-        Map<Job, Map<Job, Double>> avgPredecessorDataTransferTimeMap = calculateAvgPredecessorDataTransferTime(workflow);
+        double[] avgLocalDataTransferTimes = calculateAvgLocalDataTransferTime(workflow);
+        double[][] avgPredecessorDataTransferTimes = calculateAvgPredecessorDataTransferTime(workflow);
         double mips = getVmList().stream().mapToDouble(Vm::getMips).average().getAsDouble();
-        double upwardRank = calculateUpwardRank(avgLocalDataTransferTimeMap, avgPredecessorDataTransferTimeMap, mips, workflow);
+        double upwardRank = calculateUpwardRank(avgLocalDataTransferTimes, avgPredecessorDataTransferTimes, mips, workflow);
         double slackTime = upwardRank * getParam().getDeadlineFactor();
         workflow.setDeadline(getFinishTime() + upwardRank + slackTime);
     }
@@ -113,24 +124,20 @@ public class HEFTPlanner extends WorkflowPlannerAbstract {
      */
     private void allocateJobs(Workflow workflow) {
         log.info("{}: {}: Starting planning workflow #{} {}, a total of {} Jobs...", CloudSim.clock(), this, workflow.getId(), workflow.getName(), workflow.getJobNum());
-        List<Job> sequence = workflow.getJobList().stream().sorted(Comparator.comparingDouble(upwardRankMap::get).reversed()).toList();
-        Set<Job> scheduledSet = new HashSet<>();
-        finishTimeMap = new HashMap<>();
+        List<Job> sequence = workflow.getJobList().stream().sorted(Comparator.comparingDouble((Job job) -> upwardRanks[job.getIndex()]).reversed()).toList();
+        finishTimes = new double[workflow.getJobNum()];
         Solution solution = new Solution();
+        vmClasses = groupEquivalentVms();
+        // create the timelines up front, the vms are then evaluated with plain reads of the map
+        getVmList().forEach(vm -> getExecWindowMap().computeIfAbsent(vm, key -> new ExecTimeline()));
         double elecCost = 0;
         double reliability = 1;
         double finishTime = 0;
-        while (scheduledSet.size() < sequence.size()) {
-            for (Job job : sequence) {
-                if (scheduledSet.contains(job) || !scheduledSet.containsAll(job.getParentList())) {
-                    continue;
-                }
-                scheduledSet.add(job);
-                elecCost += allocateJob(job, solution, getExecWindowMap());
-                reliability *= reliabilityMap.get(job).get(solution.getResult().get(job));
-                finishTime = Math.max(finishTime, finishTimeMap.get(job));
-                solution.getSequence().add(job);
-            }
+        for (Job job : constructReadySequence(sequence)) {
+            elecCost += allocateJob(job, solution, getExecWindowMap());
+            reliability *= getReliability(job, solution.getResult().get(job));
+            finishTime = Math.max(finishTime, finishTimes[job.getIndex()]);
+            solution.getSequence().add(job);
         }
         solution.setElecCost(elecCost);
         solution.setReliability(reliability);
@@ -152,33 +159,99 @@ public class HEFTPlanner extends WorkflowPlannerAbstract {
     /**
      * @return electric cost
      */
-    private double allocateJob(Job job, Solution solution, Map<Vm, List<ExecWindow>> execWindowMap) {
-        double transferStartTime = job.getParentList().stream().mapToDouble(finishTimeMap::get).min().orElse(0);
-        ExecWindow bestExecWindow = null;
-        double bestReadyTime = 0;
-        List<DvfsVm> vmList = getVmList().stream().map(vm -> (DvfsVm) vm).toList();
-        for (DvfsVm vm : vmList) {
-            double max = 0;
-            for (Job parent : job.getParentList()) {
-                max = Math.max(max, finishTimeMap.get(parent) + ExperimentUtil.calculatePredecessorDataTransferTime(job, (Host) vm.getHost(), parent, (Host) solution.getResult().get(parent).getVm().getHost()));
-            }
-            double readyTime = max + localDataTransferTimeMap.get(job).get(vm);
-            ExecWindow execWindow = findExecWindow(job, vm.getFvList().getFirst(), readyTime, execWindowMap);
-            if (bestExecWindow == null || execWindow.getFinishTime() < bestExecWindow.getFinishTime()) {
-                bestExecWindow = execWindow;
-                bestReadyTime = readyTime;
+    private double allocateJob(Job job, Solution solution, Map<Vm, ExecTimeline> execWindowMap) {
+        double transferStartTime = job.getParentList().stream().mapToDouble(parent -> finishTimes[parent.getIndex()]).min().orElse(0);
+        dataHosts.clear();
+        job.getParentList().forEach(parent -> dataHosts.set(solution.getResult().get(parent).getVm().getHost().getId()));
+        job.getLocalInputFileList().forEach(file -> dataHosts.set(file.getHost().getId()));
+        Candidate best = null;
+        if (PARALLEL_PLANNING) {
+            best = Arrays.stream(vmClasses).parallel()
+                    .map(vmClass -> evaluateVmClass(job, vmClass, solution, execWindowMap))
+                    .reduce(HEFTPlanner::better)
+                    .orElseThrow();
+        } else {
+            for (int[] vmClass : vmClasses) {
+                best = better(best, evaluateVmClass(job, vmClass, solution, execWindowMap));
             }
         }
+        ExecWindow bestExecWindow = best.execWindow();
+        double bestReadyTime = best.readyTime();
         WorkflowDatacenter datacenter = (WorkflowDatacenter) bestExecWindow.getFv().getVm().getDatacenter();
-        List<Double> elecPrice = datacenter.getElecPrice();
-        double elecCost = ExperimentUtil.calculateElecCost(elecPrice, transferStartTime, bestReadyTime, bestExecWindow.getFv().getPower())
-                + ExperimentUtil.calculateElecCost(elecPrice, bestExecWindow.getStartTime(), bestExecWindow.getFinishTime(), bestExecWindow.getFv().getPower());
+        ElecTariff elecTariff = datacenter.getElecTariff();
+        double elecCost = elecTariff.calculateElecCost(transferStartTime, bestReadyTime, bestExecWindow.getFv().getPower())
+                + elecTariff.calculateElecCost(bestExecWindow.getStartTime(), bestExecWindow.getFinishTime(), bestExecWindow.getFv().getPower());
         bestExecWindow.setElecCost(elecCost);
         execWindowMap.get(bestExecWindow.getFv().getVm()).add(bestExecWindow.getInsertPos(), bestExecWindow);
-        finishTimeMap.put(job, bestExecWindow.getFinishTime());
+        finishTimes[job.getIndex()] = bestExecWindow.getFinishTime();
         solution.bindJobToFv(job, bestExecWindow.getFv());
         return bestExecWindow.getElecCost();
     }
 
+    /**
+     * Find the best vm of an equivalence class. The vms of the class which are not on a data host
+     * of the job share one ready time and exec time, so none of them can finish before
+     * readyTime + execTime. Once one of them does, the later ones are skipped: they could at best tie
+     * and a tie goes to the lower vm index. The vms on a data host are evaluated one by one.
+     */
+    private Candidate evaluateVmClass(Job job, int[] vmClass, Solution solution, Map<Vm, ExecTimeline> execWindowMap) {
+        Candidate best = null;
+        double readyTime = Double.NaN;
+        boolean earliestFound = false;
+        for (int v : vmClass) {
+            DvfsVm vm = (DvfsVm) getVmList().get(v);
+            if (dataHosts.get(vm.getHost().getId())) {
+                best = better(best, evaluateVm(job, v, calculateReadyTime(job, v, solution), execWindowMap));
+            } else if (!earliestFound) {
+                if (Double.isNaN(readyTime)) {
+                    readyTime = calculateReadyTime(job, v, solution);
+                }
+                Candidate candidate = evaluateVm(job, v, readyTime, execWindowMap);
+                earliestFound = candidate.execWindow().getFinishTime() <= readyTime + getExecTime(job, vm.getFvList().getFirst());
+                best = better(best, candidate);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the time when the data of the job is ready on the vm at the given index of the vm list
+     */
+    private double calculateReadyTime(Job job, int v, Solution solution) {
+        Host host = (Host) getVmList().get(v).getHost();
+        double max = 0;
+        List<Job> parentList = job.getParentList();
+        for (int k = 0; k < parentList.size(); k++) {
+            Job parent = parentList.get(k);
+            max = Math.max(max, finishTimes[parent.getIndex()] + calculatePredecessorDataTransferTime(job, k, host, (Host) solution.getResult().get(parent).getVm().getHost()));
+        }
+        return max + localDataTransferTimes[job.getIndex() * getVmList().size() + v];
+    }
+
+    /**
+     * place the job on the vm at the given index of the vm list, only reads the planner state so
+     * the vms can be evaluated concurrently
+     */
+    private Candidate evaluateVm(Job job, int v, double readyTime, Map<Vm, ExecTimeline> execWindowMap) {
+        DvfsVm vm = (DvfsVm) getVmList().get(v);
+        ExecWindow execWindow = findExecWindow(job, vm.getFvList().getFirst(), readyTime, execWindowMap.get(vm));
+        return new Candidate(execWindow, readyTime, v);
+    }
+
+    /**
+     * @return the candidate finishing first, on equal finish times the one on the lower vm index like
+     * a serial scan over the vm list
+     */
+    private static Candidate better(Candidate a, Candidate b) {
+        if (a == null || b == null) {
+            return a == null ? b : a;
+        }
+        double aFinish = a.execWindow().getFinishTime();
+        double bFinish = b.execWindow().getFinishTime();
+        return bFinish < aFinish || (bFinish == aFinish && b.vmIndex() < a.vmIndex()) ? b : a;
+    }
+
+    private record Candidate(ExecWindow execWindow, double readyTime, int vmIndex) {
+    }
 
 }
@@ -21,9 +21,11 @@ import java.util.*;
 @Slf4j
 public class RandomPlanner extends WorkflowPlannerAbstract {
 
-    private Map<Job, Map<Vm, Double>> localDataTransferTimeMap;
-    private Map<Job, Double> finishTimeMap;
-    private Map<Job, Double> upwardRankMap;
+    // indexed by job index * vm num + vm index
+    private double[] localDataTransferTimes;
+    // indexed by job index
+    private double[] finishTimes;
+    private double[] upwardRanks;
 
     public RandomPlanner(ContinuousDistribution random, Param param) {
         super(random, param);
@@ -53,54 +55,58 @@ public class RandomPlanner extends WorkflowPlannerAbstract {
     /**
      * calculate predicted average local data transfer time
      */
-    private Map<Job, Double> calculateAvgLocalDataTransferTime(Workflow workflow) {
-        Map<Job, Double> avgLocalDataTransferTimeMap = new HashMap<>();
-        localDataTransferTimeMap = new HashMap<>();
+    private double[] calculateAvgLocalDataTransferTime(Workflow workflow) {
+        int vmNum = getVmList().size();
+        double[] avgLocalDataTransferTimes = new double[workflow.getJobNum()];
+        localDataTransferTimes = new double[workflow.getJobNum() * vmNum];
         for (Job job : workflow.getJobList()) {
+            int base = job.getIndex() * vmNum;
             double total = 0.0;
-            Map<Vm, Double> jobLocalDataTransferTimeMap = new HashMap<>();
-            for (Vm vm : getVmList()) {
-                double temp = ExperimentUtil.calculateLocalDataTransferTime(job, (Host) vm.getHost());
-                jobLocalDataTransferTimeMap.put(vm, temp);
+            for (int v = 0; v < vmNum; v++) {
+                double temp = ExperimentUtil.calculateLocalDataTransferTime(job, (Host) getVmList().get(v).getHost());
+                localDataTransferTimes[base + v] = temp;
                 total += temp;
             }
-            avgLocalDataTransferTimeMap.put(job, total / getVmList().size());
-            localDataTransferTimeMap.put(job, jobLocalDataTransferTimeMap);
+            avgLocalDataTransferTimes[job.getIndex()] = total / vmNum;
         }
-        return avgLocalDataTransferTimeMap;
+        return avgLocalDataTransferTimes;
     }
 
     /**
-     * calculate predicted upward rank
+     * calculate predicted upward rank, the jobs are visited from the deepest and each job pushes
+     * its rank plus the transfer time from a parent to that parent
      *
-     * @param avgLocalDataTransferTimeMap
-     * @param avgPredecessorDataTransferTimeMap
+     * @param avgLocalDataTransferTimes
+     * @param avgPredecessorDataTransferTimes
      * @param avgMips
      * @param workflow
      */
-    private double calculateUpwardRank(Map<Job, Double> avgLocalDataTransferTimeMap, Map<Job, Map<Job, Double>> avgPredecessorDataTransferTimeMap, double avgMips, Workflow workflow) {
-        upwardRankMap = new HashMap<>();
+    private double calculateUpwardRank(double[] avgLocalDataTransferTimes, double[][] avgPredecessorDataTransferTimes, double avgMips, Workflow workflow) {
+        upwardRanks = new double[workflow.getJobNum()];
+        // max over the children of (child rank + transfer time from this job to the child)
+        double[] maxSuccessorRanks = new double[workflow.getJobNum()];
         List<Job> list = workflow.getJobList().stream().sorted(Comparator.comparingDouble(Job::getDepth).reversed()).toList();
         double maxUpwardRank = 0;
         for (Job job : list) {
-            double max = 0.0;
-            for (Job child : job.getChildList()) {
-                double temp = upwardRankMap.get(child) + avgPredecessorDataTransferTimeMap.get(child).get(job);
-                max = Math.max(max, temp);
-            }
-            double upwardRank = max + avgLocalDataTransferTimeMap.get(job) + job.getLength() / avgMips;
+            int i = job.getIndex();
+            double upwardRank = maxSuccessorRanks[i] + avgLocalDataTransferTimes[i] + job.getLength() / avgMips;
             maxUpwardRank = Math.max(maxUpwardRank, upwardRank);
-            upwardRankMap.put(job, upwardRank);
+            upwardRanks[i] = upwardRank;
+            List<Job> parentList = job.getParentList();
+            for (int k = 0; k < parentList.size(); k++) {
+                int p = parentList.get(k).getIndex();
+                maxSuccessorRanks[p] = Math.max(maxSuccessorRanks[p], upwardRank + avgPredecessorDataTransferTimes[i][k]);
+            }
         }
         return maxUpwardRank;
     }
 
 
     private void calculateUpwardRank(Workflow workflow) {
-        Map<Job, Double> avgLocalDataTransferTimeMap = calculateAvgLocalDataTransferTime(workflow);
-        Map<Job, Map<Job, Double>> avgPredecessorDataTransferTimeMap = calculateAvgPredecessorDataTransferTime(workflow);
+        double[] avgLocalDataTransferTimes = calculateAvgLocalDataTransferTime(workflow);
+        double[][] avgPredecessorDataTransferTimes = calculateAvgPredecessorDataTransferTime(workflow);
         double mips = getVmList().stream().mapToDouble(Vm::getMips).average().getAsDouble();
-        double upwardRank = calculateUpwardRank(avgLocalDataTransferTimeMap, avgPredecessorDataTransferTimeMap, mips, workflow);
+        double upwardRank = calculateUpwardRank(avgLocalDataTransferTimes, avgPredecessorDataTransferTimes, mips, workflow);
         double slackTime = upwardRank * getParam().getDeadlineFactor();
         workflow.setDeadline(getFinishTime() + upwardRank + slackTime);
 
@@ -112,24 +118,17 @@ public class RandomPlanner extends WorkflowPlannerAbstract {
      */
     private void allocateJobs(Workflow workflow) {
         log.info("{}: {}: Starting planning workflow #{} {}, a total of {} Jobs...", CloudSim.clock(), this, workflow.getId(), workflow.getName(), workflow.getJobNum());
-        List<Job> sequence = workflow.getJobList().stream().sorted(Comparator.comparingDouble(upwardRankMap::get).reversed()).toList();
-        Set<Job> scheduledSet = new HashSet<>();
-        finishTimeMap = new HashMap<>();
+        List<Job> sequence = workflow.getJobList().stream().sorted(Comparator.comparingDouble((Job job) -> upwardRanks[job.getIndex()]).reversed()).toList();
+        finishTimes = new double[workflow.getJobNum()];
         Solution solution = new Solution();
         double elecCost = 0;
         double reliability = 1;
         double finishTime = 0;
-        while (scheduledSet.size() < sequence.size()) {
-            for (Job job : sequence) {
-                if (scheduledSet.contains(job) || !scheduledSet.containsAll(job.getParentList())) {
-                    continue;
-                }
-                scheduledSet.add(job);
-                elecCost += allocateJob(job, solution, getExecWindowMap());
-                reliability *= reliabilityMap.get(job).get(solution.getResult().get(job));
-                finishTime = Math.max(finishTime, finishTimeMap.get(job));
-                solution.getSequence().add(job);
-            }
+        for (Job job : constructReadySequence(sequence)) {
+            elecCost += allocateJob(job, solution, getExecWindowMap());
+            reliability *= getReliability(job, solution.getResult().get(job));
+            finishTime = Math.max(finishTime, finishTimes[job.getIndex()]);
+            solution.getSequence().add(job);
         }
         solution.setElecCost(elecCost);
         solution.setReliability(reliability);
@@ -153,23 +152,26 @@ public class RandomPlanner extends WorkflowPlannerAbstract {
      *
      * @return electric cost
      */
-    private double allocateJob(Job job, Solution solution, Map<Vm, List<ExecWindow>> execWindowMap) {
-        double transferStartTime = job.getParentList().stream().mapToDouble(finishTimeMap::get).min().orElse(0);
-        DvfsVm vm = (DvfsVm) ExperimentUtil.getRandomElement(getRandom(), getVmList());
+    private double allocateJob(Job job, Solution solution, Map<Vm, ExecTimeline> execWindowMap) {
+        double transferStartTime = job.getParentList().stream().mapToDouble(parent -> finishTimes[parent.getIndex()]).min().orElse(0);
+        int v = ExperimentUtil.getRandomValue(getRandom(), getVmList().size());
+        DvfsVm vm = (DvfsVm) getVmList().get(v);
         double max = 0;
-        for (Job parent : job.getParentList()) {
-            max = Math.max(max, finishTimeMap.get(parent) + ExperimentUtil.calculatePredecessorDataTransferTime(job, (Host) vm.getHost(), parent, (Host) solution.getResult().get(parent).getVm().getHost()));
+        List<Job> parentList = job.getParentList();
+        for (int k = 0; k < parentList.size(); k++) {
+            Job parent = parentList.get(k);
+            max = Math.max(max, finishTimes[parent.getIndex()] + calculatePredecessorDataTransferTime(job, k, (Host) vm.getHost(), (Host) solution.getResult().get(parent).getVm().getHost()));
         }
-        double readyTime = max + localDataTransferTimeMap.get(job).get(vm);
+        double readyTime = max + localDataTransferTimes[job.getIndex() * getVmList().size() + v];
         Fv fv = ExperimentUtil.getRandomElement(getRandom(), vm.getFvList());
         ExecWindow execWindow = findExecWindow(job, fv, readyTime, execWindowMap);
         WorkflowDatacenter datacenter = (WorkflowDatacenter) fv.getVm().getDatacenter();
-        List<Double> elecPrice = datacenter.getElecPrice();
-        double elecCost = ExperimentUtil.calculateElecCost(elecPrice, transferStartTime, readyTime, execWindow.getFv().getPower()) +
-                ExperimentUtil.calculateElecCost(elecPrice, execWindow.getStartTime(), execWindow.getFinishTime(), execWindow.getFv().getPower());
+        ElecTariff elecTariff = datacenter.getElecTariff();
+        double elecCost = elecTariff.calculateElecCost(transferStartTime, readyTime, execWindow.getFv().getPower()) +
+                elecTariff.calculateElecCost(execWindow.getStartTime(), execWindow.getFinishTime(), execWindow.getFv().getPower());
         execWindow.setElecCost(elecCost);
         execWindowMap.get(execWindow.getFv().getVm()).add(execWindow.getInsertPos(), execWindow);
-        finishTimeMap.put(job, execWindow.getFinishTime());
+        finishTimes[job.getIndex()] = execWindow.getFinishTime();
         solution.bindJobToFv(job, execWindow.getFv());
         return elecCost;
     }
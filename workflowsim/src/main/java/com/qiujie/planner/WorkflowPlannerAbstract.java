@@ -45,7 +45,7 @@ public abstract class WorkflowPlannerAbstract {
 
     @Setter(AccessLevel.PROTECTED)
     @Getter(AccessLevel.PROTECTED)
-    private Map<Vm, List<ExecWindow>> execWindowMap;
+    private Map<Vm, ExecTimeline> execWindowMap;
 
     @Setter
     @Getter
@@ -85,59 +85,83 @@ public abstract class WorkflowPlannerAbstract {
     protected abstract void run() throws Exception;
 
 
+    // data size of each edge, indexed like the average predecessor data transfer times
+    private double[][] predecessorDataSizes;
+
     /**
-     * calculate predicted average predecessor data transfer time
+     * calculate predicted average predecessor data transfer time. The transfer time between two vms
+     * only depends on whether they share a host or a datacenter, so the average over all the vm
+     * pairs follows from the number of vms per host and per datacenter.
+     *
+     * @return indexed by job index, then by the position of the parent in the parent list of the job
      */
-    protected Map<Job, Map<Job, Double>> calculateAvgPredecessorDataTransferTime(Workflow workflow) {
-        Map<Job, Map<Job, Double>> avgPredecessorDataTransferTimeMap = new HashMap<>();
-        int vmNum = getVmList().size();
+    protected double[][] calculateAvgPredecessorDataTransferTime(Workflow workflow) {
+        Map<Integer, Integer> hostVmNumMap = new HashMap<>();
+        Map<Integer, Integer> datacenterVmNumMap = new HashMap<>();
+        for (Vm vm : getVmList()) {
+            Host host = (Host) vm.getHost();
+            hostVmNumMap.merge(host.getId(), 1, Integer::sum);
+            datacenterVmNumMap.merge(host.getDatacenter().getId(), 1, Integer::sum);
+        }
+        long sameHostPairs = hostVmNumMap.values().stream().mapToLong(num -> (long) num * num).sum();
+        long sameDatacenterPairs = datacenterVmNumMap.values().stream().mapToLong(num -> (long) num * num).sum();
+        double pairs = (double) getVmList().size() * getVmList().size();
+        // share of the vm pairs on different hosts of one datacenter, and in different datacenters
+        double intraRatio = (sameDatacenterPairs - sameHostPairs) / pairs;
+        double interRatio = (pairs - sameDatacenterPairs) / pairs;
+
+        double[][] avgPredecessorDataTransferTimes = new double[workflow.getJobNum()][];
+        predecessorDataSizes = new double[workflow.getJobNum()][];
         for (Job job : workflow.getJobList()) {
-            Map<Job, Double> map = new HashMap<>();
-            for (Job parentJob : job.getParentList()) {
-                double total = 0.0;
-                for (Vm vm : getVmList()) {
-                    for (Vm parentVm : getVmList()) {
-                        double temp = ExperimentUtil.calculatePredecessorDataTransferTime(job, (Host) vm.getHost(), parentJob, (Host) parentVm.getHost());
-                        total += temp;
-                    }
-                }
-                double avgTime = total / (vmNum * vmNum);
-                map.put(parentJob, avgTime);
+            List<Job> parentList = job.getParentList();
+            double[] times = new double[parentList.size()];
+            double[] dataSizes = new double[parentList.size()];
+            for (int k = 0; k < parentList.size(); k++) {
+                double dataSize = ExperimentUtil.calculatePredecessorDataSize(job, parentList.get(k));
+                dataSizes[k] = dataSize;
+                times[k] = dataSize / INTRA_BANDWIDTH * intraRatio + dataSize / INTER_BANDWIDTH * interRatio;
             }
-            avgPredecessorDataTransferTimeMap.put(job, map);
+            avgPredecessorDataTransferTimes[job.getIndex()] = times;
+            predecessorDataSizes[job.getIndex()] = dataSizes;
         }
-        return avgPredecessorDataTransferTimeMap;
+        return avgPredecessorDataTransferTimes;
     }
 
+    /**
+     * @param k the position of the parent in the parent list of the job
+     */
+    protected double calculatePredecessorDataTransferTime(Job job, int k, Host host, Host parentHost) {
+        return ExperimentUtil.calculatePredecessorDataTransferTime(predecessorDataSizes[job.getIndex()][k], host, parentHost);
+    }
 
-    protected ExecWindow findExecWindow(Job job, Fv fv, double readyTime, Map<Vm, List<ExecWindow>> execWindowMap) {
-        List<ExecWindow> execWindowList = execWindowMap.computeIfAbsent(fv.getVm(), vm -> new ArrayList<>());
-        double execTime = execTimeMap.get(job).get(fv);
-        double finishTime = Double.MAX_VALUE;
-        int insertPos = execWindowList.size(); // default to append to the end
-        // consider the first window
-        if (!execWindowList.isEmpty() && readyTime + execTime <= execWindowList.getFirst().getStartTime()) {
-            finishTime = readyTime + execTime;
-            insertPos = 0;
-        } else {
-            // try to find a gap
-            for (int k = 0; k < execWindowList.size() - 1; k++) {
-                double gapStart = Math.max(readyTime, execWindowList.get(k).getFinishTime());
-                double gapEnd = execWindowList.get(k + 1).getStartTime();
-                if (gapStart + execTime <= gapEnd) {
-                    finishTime = gapStart + execTime;
-                    insertPos = k + 1;
-                    break;
-                }
-            }
-            if (finishTime == Double.MAX_VALUE) {
-                double lastWindowFinish = execWindowList.isEmpty() ? readyTime : execWindowList.getLast().getFinishTime();
-                double lastFinish = Math.max(readyTime, lastWindowFinish);
-                finishTime = lastFinish + execTime;
-                insertPos = execWindowList.size();
-            }
+
+    /**
+     * Group the vms into classes of the same cpu in the same datacenter. For a job, the vms of a
+     * class which are not on the host of a parent or of a local input file get the same ready time
+     * and exec time, so they only differ by their exec windows.
+     *
+     * @return the vm indexes of each class, ascending
+     */
+    protected int[][] groupEquivalentVms() {
+        Map<String, List<Integer>> vmClassMap = new LinkedHashMap<>();
+        for (int v = 0; v < getVmList().size(); v++) {
+            DvfsVm vm = (DvfsVm) getVmList().get(v);
+            String key = vm.getCpu() + "@" + ((Host) vm.getHost()).getDatacenter().getId();
+            vmClassMap.computeIfAbsent(key, k -> new ArrayList<>()).add(v);
         }
-        return new ExecWindow(finishTime - execTime, finishTime, insertPos, fv);
+        return vmClassMap.values().stream().map(list -> list.stream().mapToInt(Integer::intValue).toArray()).toArray(int[][]::new);
+    }
+
+
+    protected ExecWindow findExecWindow(Job job, Fv fv, double readyTime, Map<Vm, ExecTimeline> execWindowMap) {
+        return findExecWindow(job, fv, readyTime, execWindowMap.computeIfAbsent(fv.getVm(), vm -> new ExecTimeline()));
+    }
+
+    /**
+     * find the window of the job in an existing timeline of the vm of the fv, without writing to any map
+     */
+    protected ExecWindow findExecWindow(Job job, Fv fv, double readyTime, ExecTimeline execTimeline) {
+        return execTimeline.findExecWindow(fv, readyTime, getExecTime(job, fv));
     }
 
 
@@ -165,8 +189,11 @@ public abstract class WorkflowPlannerAbstract {
     }
 
 
-    protected Map<Job, Map<Fv, Double>> execTimeMap;
-    protected Map<Job, Map<Fv, Double>> reliabilityMap;
+    // fv type -> fv index
+    private Map<String, Integer> fvIndexMap;
+    // indexed by job index * fv num + fv index
+    private double[] execTimes;
+    private double[] reliabilities;
 
     protected void calculateExecTimeAndReliability(Workflow workflow) {
         // Get unique types of VMs, retaining only one instance for each type
@@ -180,24 +207,30 @@ public abstract class WorkflowPlannerAbstract {
                 .values()
                 .stream()
                 .toList();
-        execTimeMap = new HashMap<>();
-        reliabilityMap = new HashMap<>();
+        fvIndexMap = new HashMap<>();
+        List<Fv> fvList = new ArrayList<>();
+        for (DvfsVm vm : uniqueVmList) {
+            for (Fv fv : vm.getFvList()) {
+                if (fvIndexMap.putIfAbsent(fv.getType(), fvList.size()) == null) {
+                    fvList.add(fv);
+                }
+            }
+        }
+        int fvNum = fvList.size();
+        execTimes = new double[workflow.getJobNum() * fvNum];
+        reliabilities = new double[workflow.getJobNum() * fvNum];
         double sumLogReliability = 0.0;
         for (Job job : workflow.getJobList()) {
-            Map<Fv, Double> jobExecTimeMap = new HashMap<>();
-            Map<Fv, Double> jobReliabilityMap = new HashMap<>();
+            int base = job.getIndex() * fvNum;
             double maxSubReliability = 0.0;
-            for (DvfsVm vm : uniqueVmList) {
-                for (Fv fv : vm.getFvList()) {
-                    double executionTime = job.getLength() / fv.getMips();
-                    jobExecTimeMap.put(fv, executionTime);
-                    double reliability = ExperimentUtil.calculateReliability(fv.getLambda(), executionTime);
-                    jobReliabilityMap.put(fv, reliability);
-                    maxSubReliability = Math.max(maxSubReliability, reliability);
-                }
+            for (int f = 0; f < fvNum; f++) {
+                Fv fv = fvList.get(f);
+                double executionTime = job.getLength() / fv.getMips();
+                execTimes[base + f] = executionTime;
+                double reliability = ExperimentUtil.calculateReliability(fv.getLambda(), executionTime);
+                reliabilities[base + f] = reliability;
+                maxSubReliability = Math.max(maxSubReliability, reliability);
             }
-            execTimeMap.put(job, jobExecTimeMap);
-            reliabilityMap.put(job, jobReliabilityMap);
             // Accumulate the logarithm of the maximum reliability for each job
             sumLogReliability += Math.log(maxSubReliability);
         }
@@ -208,6 +241,61 @@ public abstract class WorkflowPlannerAbstract {
         workflow.setReliGoal(Math.pow(getParam().getReliabilityFactor() * smoothReliability, jobNum));
     }
 
+    protected double getExecTime(Job job, Fv fv) {
+        return execTimes[job.getIndex() * fvIndexMap.size() + fvIndexMap.get(fv.getType())];
+    }
+
+    protected double getReliability(Job job, Fv fv) {
+        return reliabilities[job.getIndex() * fvIndexMap.size() + fvIndexMap.get(fv.getType())];
+    }
+
+
+    /**
+     * Order the jobs of a workflow for allocation: repeated passes over the priority sequence, each
+     * pass taking in order the jobs whose parents have all been taken, until every job is taken.
+     * Instead of rescanning the sequence, each job keeps the number of its parents not taken yet and
+     * the jobs that became ready wait in a priority queue keyed by their position in the sequence,
+     * for the current pass when they are after its cursor and for the next pass otherwise, so every
+     * job is visited once.
+     *
+     * @param sequence the jobs of one workflow by priority, e.g. by descending upward rank
+     */
+    protected List<Job> constructReadySequence(List<Job> sequence) {
+        int[] positions = new int[sequence.size()];
+        int[] remainingParents = new int[sequence.size()];
+        PriorityQueue<Integer> currentPass = new PriorityQueue<>();
+        PriorityQueue<Integer> nextPass = new PriorityQueue<>();
+        for (int i = 0; i < sequence.size(); i++) {
+            Job job = sequence.get(i);
+            positions[job.getIndex()] = i;
+            remainingParents[job.getIndex()] = job.getParentList().size();
+            if (job.getParentList().isEmpty()) {
+                currentPass.add(i);
+            }
+        }
+        List<Job> readySequence = new ArrayList<>(sequence.size());
+        while (!currentPass.isEmpty()) {
+            int cursor = currentPass.poll();
+            Job job = sequence.get(cursor);
+            readySequence.add(job);
+            for (Job child : job.getChildList()) {
+                if (--remainingParents[child.getIndex()] == 0) {
+                    int position = positions[child.getIndex()];
+                    (position > cursor ? currentPass : nextPass).add(position);
+                }
+            }
+            if (currentPass.isEmpty()) {
+                PriorityQueue<Integer> pass = currentPass;
+                currentPass = nextPass;
+                nextPass = pass;
+            }
+        }
+        if (readySequence.size() < sequence.size()) {
+            throw new IllegalStateException("The jobs are not a DAG, " + (sequence.size() - readySequence.size()) + " jobs never get ready");
+        }
+        return readySequence;
+    }
+
 
     protected List<Job> constructInitialJobSequence(Workflow workflow) {
         JobSequenceStrategyEnum jobSequenceStrategy = getParam().getJobSequenceStrategy();
@@ -0,0 +1,193 @@
+package com.qiujie.repository;
+
+import com.esotericsoftware.kryo.kryo5.Kryo;
+import com.esotericsoftware.kryo.kryo5.io.ByteBufferInput;
+import com.esotericsoftware.kryo.kryo5.io.Output;
+import com.qiujie.entity.CompiledDax;
+import com.qiujie.entity.Cpu;
+import com.qiujie.entity.Dax;
+import com.qiujie.util.KryoUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+import static com.qiujie.Constants.*;
+
+/**
+ * Keeps all the daxes and the cpu list in one archive file, {@link com.qiujie.Constants#WORKFLOW_ARCHIVE}.
+ * The archive is memory-mapped read-only on first use, and concurrent simulation processes share
+ * the mapped pages through the OS page cache. Daxes are stored in the binary dax format of
+ * {@link CompiledDax}, which is read straight from the mapping; the cpu list is a Kryo blob.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * int magic, int version, int entries
+ * entries x (int name length, name bytes (UTF-8), long offset, int length)
+ * cpu list Kryo class-and-object blob
+ * (entries - 1) x binary dax
+ * </pre>
+ */
+@Slf4j
+public class FileWorkflowRepository implements WorkflowRepository {
+
+    private static final int MAGIC = 0x57464152; // WFAR
+    private static final int VERSION = 2;
+
+    private static volatile FileWorkflowRepository instance;
+
+    private final Path path;
+    private volatile Archive archive;
+
+    /**
+     * The mapped archive and its entries: name -> (offset, length). Reads only use absolute
+     * slices of the buffer, so it is shared by all threads without locking.
+     */
+    private record Archive(MappedByteBuffer buffer, Map<String, long[]> index) {
+    }
+
+    public FileWorkflowRepository(Path path) {
+        this.path = path;
+    }
+
+    public static FileWorkflowRepository getInstance() {
+        if (instance == null) {
+            synchronized (FileWorkflowRepository.class) {
+                if (instance == null) {
+                    instance = new FileWorkflowRepository(Path.of(WORKFLOW_ARCHIVE));
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public Dax getDax(String name) {
+        CompiledDax compiledDax = getCompiledDax(name);
+        return compiledDax == null ? null : compiledDax.toDax();
+    }
+
+    @Override
+    public CompiledDax getCompiledDax(String name) {
+        ByteBuffer slice = slice(name);
+        return slice == null ? null : CompiledDax.read(slice);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<Cpu> getCpus() {
+        ByteBuffer slice = slice(CPUS);
+        return slice == null ? null : (List<Cpu>) KryoUtil.getInstance().readClassAndObject(new ByteBufferInput(slice));
+    }
+
+    /**
+     * Writes the archive to a temporary file next to it and moves it into place, so processes
+     * that already mapped the previous archive keep reading a consistent file.
+     */
+    @Override
+    public void save(List<Cpu> cpuList, List<Dax> daxList) {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put(CPUS, serialize(cpuList));
+        for (Dax dax : daxList) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try {
+                CompiledDax.compile(dax).write(baos);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entries.put(dax.getName(), baos.toByteArray());
+        }
+        long offset = 3 * Integer.BYTES;
+        for (String name : entries.keySet()) {
+            offset += Integer.BYTES + name.getBytes(StandardCharsets.UTF_8).length + Long.BYTES + Integer.BYTES;
+        }
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                    byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(name.length);
+                    out.write(name);
+                    out.writeLong(offset);
+                    out.writeInt(entry.getValue().length);
+                    offset += entry.getValue().length;
+                }
+                for (byte[] bytes : entries.values()) {
+                    out.write(bytes);
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write workflow archive " + path, e);
+        }
+        archive = null;
+        log.info("Saved {} daxes and {} cpus to {}", daxList.size(), cpuList.size(), path);
+    }
+
+    private ByteBuffer slice(String name) {
+        Archive archive = getArchive();
+        long[] entry = archive.index().get(name);
+        if (entry == null) {
+            return null;
+        }
+        return archive.buffer().slice((int) entry[0], (int) entry[1]);
+    }
+
+    private Archive getArchive() {
+        Archive archive = this.archive;
+        if (archive == null) {
+            synchronized (this) {
+                archive = this.archive;
+                if (archive == null) {
+                    archive = map();
+                    this.archive = archive;
+                }
+            }
+        }
+        return archive;
+    }
+
+    private Archive map() {
+        if (!Files.exists(path)) {
+            throw new IllegalStateException("Workflow archive " + path + " not found, run DataLoader first");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalStateException(path + " is not a workflow archive");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IllegalStateException("Unsupported workflow archive version " + version + ", run DataLoader again");
+            }
+            int entries = buffer.getInt();
+            Map<String, long[]> index = new HashMap<>(entries * 2);
+            for (int i = 0; i < entries; i++) {
+                byte[] name = new byte[buffer.getInt()];
+                buffer.get(name);
+                index.put(new String(name, StandardCharsets.UTF_8), new long[]{buffer.getLong(), buffer.getInt()});
+            }
+            return new Archive(buffer, index);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map workflow archive " + path, e);
+        }
+    }
+
+    private static byte[] serialize(Object value) {
+        Kryo kryo = KryoUtil.getInstance();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (Output output = new Output(baos)) {
+            kryo.writeClassAndObject(output, value);
+        }
+        return baos.toByteArray();
+    }
+}
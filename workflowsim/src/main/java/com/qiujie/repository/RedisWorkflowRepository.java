@@ -0,0 +1,43 @@
+package com.qiujie.repository;
+
+import com.qiujie.entity.Cpu;
+import com.qiujie.entity.Dax;
+import com.qiujie.util.RedisUtil;
+
+import java.util.List;
+
+import static com.qiujie.Constants.*;
+
+/**
+ * Keeps every dax under its name and the cpu list under {@link com.qiujie.Constants#CPUS} in redis
+ */
+public class RedisWorkflowRepository implements WorkflowRepository {
+
+    private static final RedisWorkflowRepository INSTANCE = new RedisWorkflowRepository();
+
+    private RedisWorkflowRepository() {
+    }
+
+    public static RedisWorkflowRepository getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public Dax getDax(String name) {
+        return RedisUtil.get(name);
+    }
+
+    @Override
+    public List<Cpu> getCpus() {
+        return RedisUtil.get(CPUS);
+    }
+
+    @Override
+    public void save(List<Cpu> cpuList, List<Dax> daxList) {
+        RedisUtil.flushDB();
+        RedisUtil.set(CPUS, cpuList);
+        for (Dax dax : daxList) {
+            RedisUtil.set(dax.getName(), dax);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.qiujie.repository;
+
+import com.qiujie.entity.CompiledDax;
+import com.qiujie.entity.Cpu;
+import com.qiujie.entity.Dax;
+
+import java.util.List;
+
+import static com.qiujie.Constants.*;
+
+/**
+ * Storage of the preprocessed workflows ({@link Dax}) and CPU models ({@link Cpu}) the simulations
+ * are built from. {@link com.qiujie.util.DataLoader} fills the repository selected by
+ * {@link com.qiujie.Constants#REPOSITORY}, and every simulation reads from it.
+ */
+public interface WorkflowRepository {
+
+    /**
+     * @param name the dax name, e.g. Montage_50
+     * @return the dax, or null if the repository does not contain it
+     */
+    Dax getDax(String name);
+
+    /**
+     * @param name the dax name, e.g. Montage_50
+     * @return the compiled topology of the dax, or null if the repository does not contain it
+     */
+    default CompiledDax getCompiledDax(String name) {
+        Dax dax = getDax(name);
+        return dax == null ? null : CompiledDax.compile(dax);
+    }
+
+    /**
+     * @return the cpu models, or null if the repository does not contain them
+     */
+    List<Cpu> getCpus();
+
+    /**
+     * Replaces the content of the repository
+     */
+    void save(List<Cpu> cpuList, List<Dax> daxList);
+
+    static WorkflowRepository getInstance() {
+        return switch (REPOSITORY) {
+            case FILE -> FileWorkflowRepository.getInstance();
+            case REDIS -> RedisWorkflowRepository.getInstance();
+        };
+    }
+}
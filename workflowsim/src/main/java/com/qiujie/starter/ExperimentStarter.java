@@ -6,8 +6,9 @@ import cn.hutool.core.text.csv.CsvUtil;
 import cn.hutool.core.text.csv.CsvWriter;
 import com.qiujie.entity.Result;
 import com.qiujie.entity.SimParam;
+import com.qiujie.enums.SimModeEnum;
 import com.qiujie.util.ExperimentUtil;
-import com.qiujie.util.KryoUtil;
+import com.qiujie.util.Log;
 import lombok.AccessLevel;
 import lombok.Setter;
 import org.slf4j.Logger;
@@ -21,6 +22,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 import static com.qiujie.Constants.*;
 
@@ -31,6 +33,8 @@ public abstract class ExperimentStarter {
     @Setter(AccessLevel.PROTECTED)
     private Level level;
     private final BlockingQueue<SimParam> taskQueue;
+    // the child JVMs in PROCESS mode, which take the sim params instead of the task queue
+    private SimProcessPool pool;
     private int total;
 
     public ExperimentStarter() {
@@ -53,7 +57,7 @@ public abstract class ExperimentStarter {
 
     private void run() {
         createDirs();
-        startSimProcesses();
+        startSims();
     }
 
     private void createDirs() {
@@ -64,29 +68,43 @@ public abstract class ExperimentStarter {
     protected abstract void addParams() throws InterruptedException;
 
     protected void addParam(SimParam simParam) throws InterruptedException {
-        taskQueue.put(simParam);
+        submit(simParam);
         total++;
     }
 
+    private void submit(SimParam simParam) throws InterruptedException {
+        if (pool != null) {
+            pool.submit(simParam);
+        } else {
+            taskQueue.put(simParam);
+        }
+    }
+
 
-    private void startSimProcesses() {
+    private void startSims() {
         int availableCores = Runtime.getRuntime().availableProcessors();
         int maxConcurrent = Math.max(1, availableCores - RESERVED_CORES);
-        String javaPath = System.getProperty("java.home") + "/bin/java";
-        String classPath = System.getProperty("java.class.path");
 
-        log.info("🖥️  Detected CPU cores: {}, setting max concurrent processes: {}", availableCores, maxConcurrent);
+        log.info("🖥️  Detected CPU cores: {}, setting max concurrent {}: {}", availableCores, SIM_MODE == SimModeEnum.THREAD ? "threads" : "processes", maxConcurrent);
 
         BlockingQueue<Result> resultQueue = new LinkedBlockingQueue<>();
         Thread writer = getWriter(resultQueue);
         writer.start();
 
+        if (SIM_MODE != SimModeEnum.THREAD) {
+            try {
+                pool = new SimProcessPool(maxConcurrent, name, level);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
         total = 0;
         Thread producer = new Thread(() -> {
             try {
                 addParams();
                 for (int i = 0; i < maxConcurrent; i++) {
-                    taskQueue.put(SimParam.POISON_PILL);
+                    submit(SimParam.POISON_PILL);
                 }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
@@ -94,38 +112,59 @@ public abstract class ExperimentStarter {
         });
         producer.start();
 
-        List<SimProcess> simProcesses = new ArrayList<>();
-        for (int i = 0; i < maxConcurrent; i++) {
-            simProcesses.add(new SimProcess(javaPath, classPath, name, level));
+        long start = System.currentTimeMillis();
+        AtomicInteger counter = new AtomicInteger(0);
+        BiConsumer<SimParam, Result> consumer = (simParam, result) -> {
+            int count = counter.incrementAndGet();
+            if (count == 1 || count == total || count % 500 == 0) {
+                log.info("✅  Progress: {} / {}", count, total);
+            }
+            if (result.equals(Result.POISON_PILL)) {
+                log.error("❌ Sim {} failed", simParam);
+            } else {
+                try {
+                    resultQueue.put(result);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        if (SIM_MODE == SimModeEnum.THREAD) {
+            runThreads(maxConcurrent, consumer);
+        } else {
+            runProcesses(consumer);
         }
+        double elapsed = (System.currentTimeMillis() - start) / 1000.0;
+        log.info("📈  Throughput: {} sims in {}s, {} sims/s", counter.get(), elapsed, String.format("%.2f", counter.get() / Math.max(elapsed, 0.001)));
 
+        try {
+            resultQueue.put(Result.POISON_PILL);
+            writer.join();
+        } catch (InterruptedException e) {
+            writer.interrupt();
+        }
+    }
+
+
+    private void runThreads(int maxConcurrent, BiConsumer<SimParam, Result> consumer) {
+        SimStarter starter = new SimStarter(name);
+        // the simulations share this JVM, so only the loggers below the experiment are muted
+        Log.setLevel(level);
+        Log.setLevel(log, Level.INFO);
         ExecutorService executor = Executors.newFixedThreadPool(maxConcurrent);
-        AtomicInteger counter = new AtomicInteger(0);
         for (int i = 0; i < maxConcurrent; i++) {
-            SimProcess simProcess = simProcesses.get(i);
             executor.submit(() -> {
                 try {
-                    simProcess.setKryo(KryoUtil.getInstance());
                     while (true) {
                         SimParam simParam = taskQueue.take();
                         if (simParam.equals(SimParam.POISON_PILL)) break;
-                        Result result = simProcess.run(simParam);
-                        int count = counter.incrementAndGet();
-                        if (count == 1 || count == total || count % 500 == 0) {
-                            log.info("✅  Progress: {} / {}", count, total);
-                        }
-                        if (result.equals(Result.POISON_PILL)) {
-                            log.error("❌ Sim {} failed", simParam);
-                        } else {
-                            resultQueue.put(result);
-                        }
+                        consumer.accept(simParam, starter.start(simParam));
                     }
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                 }
             });
         }
-
         executor.shutdown();
         try {
             if (!executor.awaitTermination(12, TimeUnit.HOURS)) {
@@ -135,18 +174,20 @@ public abstract class ExperimentStarter {
             executor.shutdownNow();
             Thread.currentThread().interrupt();
         }
+    }
 
-        try {
-            resultQueue.put(Result.POISON_PILL);
-            writer.join();
-        } catch (InterruptedException e) {
-            writer.interrupt();
-        }
 
-        for (SimProcess sp : simProcesses) {
-            sp.shutdown();
+    /**
+     * The child JVMs are served by this thread alone, see {@link SimProcessPool}
+     */
+    private void runProcesses(BiConsumer<SimParam, Result> consumer) {
+        try {
+            pool.run(consumer);
+        } catch (IOException | RuntimeException e) {
+            log.error("❌ The sim processes failed", e);
+        } finally {
+            pool.shutdown();
         }
-
     }
 
 
@@ -6,22 +6,49 @@ import com.esotericsoftware.kryo.kryo5.io.Input;
 import com.esotericsoftware.kryo.kryo5.io.Output;
 import com.qiujie.entity.Result;
 import com.qiujie.entity.SimParam;
-import com.qiujie.util.KryoUtil;
-import lombok.Setter;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
+/**
+ * A child JVM running {@link SimStarter#main(String[])}, connected back to the parent by a loopback
+ * socket, see {@link SimProcessPool}. The channel is non-blocking: sim params are sent in batches
+ * without waiting for their results, and the results come back as frames tagged with the id of their
+ * sim param, [int length][int id][Result], so a failed sim ({@link Result#POISON_PILL}) is still matched.
+ */
 @Slf4j
 class SimProcess {
+    @Getter
+    private final int index;
     private final Process process;
-    private final Output output;
-    private final Input input;
-    @Setter
-    private Kryo kryo;
+    @Getter
+    private SocketChannel channel;
+    private final Kryo kryo;
 
+    // sim params sent and not answered yet, by id
+    private final Map<Integer, SimParam> inFlight = new LinkedHashMap<>();
 
-    SimProcess(String javaPath, String classPath, String name, Level level) {
+    // encoded sim params not written to the channel yet, in read mode
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(0);
+
+    // received bytes not decoded yet, in write mode
+    private ByteBuffer readBuffer = allocate(8192);
+
+    private final Output frame = new Output(1024, -1);
+    private final Input input = new Input();
+
+
+    SimProcess(int index, String javaPath, String classPath, String name, Level level, int port, Kryo kryo) {
+        this.index = index;
+        this.kryo = kryo;
         ProcessBuilder pb = new ProcessBuilder(
                 javaPath,
                 "-Xms768m",
@@ -29,38 +56,131 @@ class SimProcess {
                 "-Dstartup.class=" + name,
                 "-cp", classPath,
                 SimStarter.class.getName(),
-                String.valueOf(level.levelInt)
+                String.valueOf(level.levelInt),
+                String.valueOf(port),
+                String.valueOf(index)
         );
+        // the child talks through its socket only, its own output goes to the console of the parent
+        pb.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
         try {
             process = pb.start();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        output = new Output(process.getOutputStream());
-        input = new Input(process.getInputStream());
     }
 
-    Result run(SimParam simParam) {
-        kryo.writeObject(output, simParam);
-        output.flush();
-        return kryo.readObject(input, Result.class);
+    void connect(SocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+        this.channel = channel;
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return whether encoded sim params are still waiting for the channel to be writable
+     */
+    boolean hasPendingWrites() {
+        return writeBuffer.hasRemaining();
+    }
+
+    /**
+     * Encodes the sim params into one batch and writes as much of it as the channel takes
+     */
+    void send(List<SimParam> simParams) throws IOException {
+        frame.reset();
+        for (SimParam simParam : simParams) {
+            kryo.writeObject(frame, simParam);
+            if (!simParam.equals(SimParam.POISON_PILL)) {
+                inFlight.put(simParam.getId(), simParam);
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(writeBuffer.remaining() + frame.position());
+        buffer.put(writeBuffer).put(frame.getBuffer(), 0, frame.position()).flip();
+        writeBuffer = buffer;
+        flush();
+    }
+
+    /**
+     * Writes the pending bytes as far as the channel takes them
+     */
+    void flush() throws IOException {
+        while (writeBuffer.hasRemaining() && channel.write(writeBuffer) > 0) {
+        }
     }
 
+    /**
+     * Reads the available bytes and hands every complete result to the consumer with its sim param
+     *
+     * @return false if the child closed its end
+     */
+    boolean receive(BiConsumer<SimParam, Result> consumer) throws IOException {
+        int read;
+        while ((read = channel.read(readBuffer)) > 0) {
+            if (!readBuffer.hasRemaining()) {
+                readBuffer = allocate(readBuffer.capacity() * 2).put(readBuffer.flip());
+            }
+        }
+        readBuffer.flip();
+        while (readBuffer.remaining() >= Integer.BYTES) {
+            int length = readBuffer.getInt(readBuffer.position());
+            if (readBuffer.remaining() < Integer.BYTES + length) {
+                if (readBuffer.capacity() < Integer.BYTES + length) {
+                    readBuffer = allocate(Integer.BYTES + length).put(readBuffer).flip();
+                }
+                break;
+            }
+            readBuffer.position(readBuffer.position() + Integer.BYTES);
+            input.setBuffer(readBuffer.array(), readBuffer.arrayOffset() + readBuffer.position(), length);
+            int id = input.readInt();
+            Result result = kryo.readObject(input, Result.class);
+            readBuffer.position(readBuffer.position() + length);
+            consumer.accept(inFlight.remove(id), result);
+        }
+        readBuffer.compact();
+        return read >= 0;
+    }
+
+    /**
+     * Kryo writes its ints little-endian
+     */
+    static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Takes back the sim params left in flight by a child which exited
+     */
+    List<SimParam> abandon() {
+        List<SimParam> simParams = List.copyOf(inFlight.values());
+        inFlight.clear();
+        return simParams;
+    }
+
+    /**
+     * Sends the poison pill and waits for the child to exit. Called once the selector of the pool is
+     * closed, so the channel can block until the pill is written.
+     */
     public void shutdown() {
         try {
-            kryo.writeObject(output, SimParam.POISON_PILL);
-            output.flush();
+            if (channel != null && channel.isOpen()) {
+                channel.configureBlocking(true);
+                send(List.of(SimParam.POISON_PILL));
+            }
             process.waitFor();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("❌ Sim process {} could not be shut down", index, e);
+            process.destroy();
         } finally {
             try {
-                input.close();
-            } catch (Exception ignored) {
-            }
-            try {
-                output.close();
-            } catch (Exception ignored) {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException ignored) {
             }
         }
     }
@@ -0,0 +1,187 @@
+package com.qiujie.starter;
+
+import ch.qos.logback.classic.Level;
+import com.qiujie.entity.Result;
+import com.qiujie.entity.SimParam;
+import com.qiujie.util.KryoUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.BiConsumer;
+
+import static com.qiujie.Constants.*;
+
+/**
+ * The child JVMs of an experiment, all served by the thread calling {@link #run}: a single selector
+ * keeps {@link com.qiujie.Constants#SIM_PIPELINE_DEPTH} sim params in flight per child and collects
+ * the results as they come, so a child starts its next sim as soon as it finished the previous one.
+ * Sim params are queued by {@link #submit}, which wakes the selector up, so the thread only wakes up
+ * for new work or results.
+ * Process pipes cannot be selected, so every child connects back to a loopback server socket instead.
+ */
+@Slf4j
+class SimProcessPool {
+
+    // how long a child may take to start and connect back
+    private static final int CONNECT_TIMEOUT_MILLIS = 60_000;
+
+    private final List<SimProcess> simProcesses = new ArrayList<>();
+
+    private final BlockingQueue<SimParam> taskQueue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+    // woken up by every submit, so a waiting run dispatches new sim params at once
+    private final Selector selector;
+
+    SimProcessPool(int size, String name, Level level) throws IOException {
+        String javaPath = System.getProperty("java.home") + "/bin/java";
+        String classPath = System.getProperty("java.class.path");
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            int port = server.socket().getLocalPort();
+            for (int i = 0; i < size; i++) {
+                simProcesses.add(new SimProcess(i, javaPath, classPath, name, level, port, KryoUtil.getInstance()));
+            }
+            ServerSocket serverSocket = server.socket();
+            serverSocket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            for (int i = 0; i < size; i++) {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                // the child introduces itself by its index
+                ByteBuffer index = SimProcess.allocate(Integer.BYTES);
+                while (index.hasRemaining()) {
+                    if (socket.getChannel().read(index) < 0) {
+                        throw new IOException("A sim process closed its connection before introducing itself");
+                    }
+                }
+                simProcesses.get(index.getInt(0)).connect(socket.getChannel());
+            }
+        }
+        selector = Selector.open();
+    }
+
+    /**
+     * Queues a sim param for {@link #run}, blocking while the queue is full
+     */
+    void submit(SimParam simParam) throws InterruptedException {
+        taskQueue.put(simParam);
+        selector.wakeup();
+    }
+
+    /**
+     * Runs the submitted sim params, until the first {@link SimParam#POISON_PILL}, and hands every
+     * result to the consumer with its sim param, in the order the results arrive. The sim params in
+     * flight on a child which exits are sent again to the live children, once: a sim param lost twice
+     * is more likely the cause than a victim, so it is reported as failed ({@link Result#POISON_PILL}).
+     */
+    void run(BiConsumer<SimParam, Result> consumer) throws IOException {
+        try (selector) {
+            for (SimProcess simProcess : simProcesses) {
+                simProcess.getChannel().register(selector, SelectionKey.OP_READ, simProcess);
+            }
+            // sim params lost by an exited child, sent before the ones of the queue
+            Deque<SimParam> retries = new ArrayDeque<>();
+            Set<Integer> retriedIds = new HashSet<>();
+            boolean drained = false;
+            while (true) {
+                for (SimProcess simProcess : simProcesses) {
+                    if (!simProcess.getChannel().isOpen()) continue;
+                    List<SimParam> batch = new ArrayList<>();
+                    while (simProcess.inFlightCount() + batch.size() < SIM_PIPELINE_DEPTH) {
+                        SimParam simParam = retries.poll();
+                        if (simParam == null && !drained) {
+                            simParam = taskQueue.poll();
+                            if (simParam != null && simParam.equals(SimParam.POISON_PILL)) {
+                                drained = true;
+                                simParam = null;
+                            }
+                        }
+                        if (simParam == null) break;
+                        batch.add(simParam);
+                    }
+                    if (batch.isEmpty()) continue;
+                    try {
+                        simProcess.send(batch);
+                        updateInterest(simProcess);
+                    } catch (IOException e) {
+                        exited(simProcess, e, retries, retriedIds, consumer);
+                    }
+                }
+                if (drained && retries.isEmpty() && simProcesses.stream().allMatch(simProcess -> simProcess.inFlightCount() == 0)) break;
+                if (simProcesses.stream().noneMatch(simProcess -> simProcess.getChannel().isOpen())) {
+                    for (SimParam simParam : retries) {
+                        consumer.accept(simParam, Result.POISON_PILL);
+                    }
+                    throw new IOException("All the sim processes exited");
+                }
+                // woken up by a result, a writable channel or a submit
+                selector.select();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) continue;
+                    SimProcess simProcess = (SimProcess) key.attachment();
+                    boolean open;
+                    IOException cause = null;
+                    try {
+                        if (key.isWritable()) {
+                            simProcess.flush();
+                        }
+                        open = !key.isReadable() || simProcess.receive(consumer);
+                    } catch (IOException e) {
+                        open = false;
+                        cause = e;
+                    }
+                    if (open) {
+                        updateInterest(simProcess);
+                    } else {
+                        exited(simProcess, cause, retries, retriedIds, consumer);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        }
+    }
+
+    /**
+     * Closes the channel of a child which exited and queues its sim params in flight for a retry, or
+     * fails those already retried once
+     */
+    private void exited(SimProcess simProcess, IOException cause, Deque<SimParam> retries, Set<Integer> retriedIds,
+                        BiConsumer<SimParam, Result> consumer) throws IOException {
+        log.error("❌ Sim process {} exited with {} sims in flight", simProcess.getIndex(), simProcess.inFlightCount(), cause);
+        for (SimParam simParam : simProcess.abandon()) {
+            if (retriedIds.add(simParam.getId())) {
+                retries.add(simParam);
+            } else {
+                consumer.accept(simParam, Result.POISON_PILL);
+            }
+        }
+        simProcess.getChannel().close();
+    }
+
+    private void updateInterest(SimProcess simProcess) {
+        SelectionKey key = simProcess.getChannel().keyFor(selector);
+        key.interestOps(simProcess.hasPendingWrites() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    void shutdown() {
+        for (SimProcess simProcess : simProcesses) {
+            simProcess.shutdown();
+        }
+    }
+}
@@ -4,25 +4,28 @@ import ch.qos.logback.classic.Level;
 import com.esotericsoftware.kryo.kryo5.Kryo;
 import com.esotericsoftware.kryo.kryo5.io.Input;
 import com.esotericsoftware.kryo.kryo5.io.Output;
-import com.qiujie.aop.ClockModifier;
 import com.qiujie.core.WorkflowBroker;
+import com.qiujie.core.WorkflowDatacenter;
 import com.qiujie.entity.Param;
 import com.qiujie.entity.Result;
 import com.qiujie.entity.SimParam;
 import com.qiujie.entity.Workflow;
-import com.qiujie.planner.DRDWSPlanner;
 import com.qiujie.planner.WorkflowPlannerAbstract;
 import com.qiujie.util.ExperimentUtil;
 import com.qiujie.util.KryoUtil;
 import com.qiujie.util.Log;
 import lombok.extern.slf4j.Slf4j;
+import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
 import org.cloudbus.cloudsim.distributions.UniformDistr;
 import org.slf4j.MDC;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
+import java.net.InetAddress;
+import java.net.Socket;
 import java.util.Calendar;
 import java.util.List;
 
@@ -35,9 +38,8 @@ public class SimStarter {
 
     private final String name;
 
-    private SimStarter(String name) {
+    SimStarter(String name) {
         this.name = name;
-        ClockModifier.modifyClockMethod();
         org.cloudbus.cloudsim.Log.disable();
     }
 
@@ -56,12 +58,13 @@ public class SimStarter {
             long startTime = System.currentTimeMillis();
             WorkflowBroker broker = run(simParam, random, planner);
             double runtime = (System.currentTimeMillis() - startTime) / 1000.0;
-            log.info("{}: Finished in {}s\n", planner, runtime);
+            log.info("{}: Finished in {}s, {} events, {} events/s\n", planner, runtime, CloudSim.getProcessedEvents(), String.format("%.0f", CloudSim.getEventsPerSecond()));
             return new Result(simParam, planner, broker, runtime);
         } catch (Exception e) {
             log.error("❌ Sim {} failed", simParam, e);
             return Result.POISON_PILL;
         } finally {
+            CloudSim.clearContext();
             MDC.remove("sim.id");
         }
     }
@@ -69,9 +72,12 @@ public class SimStarter {
 
     private WorkflowBroker run(SimParam simParam, ContinuousDistribution random, WorkflowPlannerAbstract planner) throws Exception {
         // init cloudsim
-        CloudSim.init(USERS, Calendar.getInstance(), TRACE_FLAG, MIN_TIME_BETWEEN_EVENTS);
+        CloudSim.init(USERS, Calendar.getInstance(), TRACE_FLAG, MIN_TIME_BETWEEN_EVENTS, ExperimentUtil.createFutureEventList());
+        CloudSim.getContext().setClockResolution(CLOCK_RESOLUTION);
+        CloudSim.getContext().setParallelism(SIM_PARALLELISM);
+        CloudSim.getContext().setEventPoolSafeMode(SIM_EVENT_POOL_SAFE_MODE);
         // create datacenters
-        ExperimentUtil.createDatacenters();
+        List<Datacenter> datacenterList = ExperimentUtil.createDatacenters();
         // create broker
         WorkflowBroker broker = new WorkflowBroker(random, planner);
         // submit vms
@@ -82,6 +88,9 @@ public class SimStarter {
         broker.submitWorkflow(workflowList);
         // start simulation
         CloudSim.startSimulation();
+        log.info("{}: {} datacenter wake-ups, {} superseded ones skipped", planner,
+                datacenterList.stream().mapToLong(dc -> ((WorkflowDatacenter) dc).getWakeUpCount()).sum(),
+                datacenterList.stream().mapToLong(dc -> ((WorkflowDatacenter) dc).getSkippedWakeUpCount()).sum());
         if (broker.getCloudletReceivedList().isEmpty()) {
             throw new IllegalStateException("No cloudlet received");
         }
@@ -93,16 +102,31 @@ public class SimStarter {
     }
 
 
-    public static void main(String[] args) {
+    /**
+     * The child JVM of {@link SimProcess}: args are the log level, the port of the parent and the index
+     * of the child. Sim params are read in order and each result is written as soon as it is ready, as a
+     * frame [int length][int sim param id][Result]; the next sim params are already waiting in the socket.
+     */
+    public static void main(String[] args) throws IOException {
         Log.setLevel(Level.toLevel(Integer.parseInt(args[0])));
         SimStarter starter = new SimStarter(System.getProperty("startup.class"));
         Kryo kryo = KryoUtil.getInstance();
-        try (Output output = new Output(System.out); Input input = new Input(System.in)) {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[1]));
+             Output output = new Output(socket.getOutputStream());
+             Input input = new Input(socket.getInputStream())) {
+            socket.setTcpNoDelay(true);
+            output.writeInt(Integer.parseInt(args[2]));
+            output.flush();
+            Output frame = new Output(1024, -1);
             while (true) {
                 SimParam simParam = kryo.readObject(input, SimParam.class);
                 if (simParam.equals(SimParam.POISON_PILL)) break;
                 Result result = starter.start(simParam);
-                kryo.writeObject(output, result);
+                frame.reset();
+                frame.writeInt(simParam.getId());
+                kryo.writeObject(frame, result);
+                output.writeInt(frame.position());
+                output.writeBytes(frame.getBuffer(), 0, frame.position());
                 output.flush();
             }
         }
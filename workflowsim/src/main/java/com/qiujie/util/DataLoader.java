@@ -4,12 +4,14 @@ import cn.hutool.core.io.IORuntimeException;
 import cn.hutool.json.JSONUtil;
 import com.qiujie.entity.Cpu;
 import com.qiujie.entity.Dax;
+import com.qiujie.repository.WorkflowRepository;
 import org.cloudbus.cloudsim.distributions.UniformDistr;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
@@ -22,24 +24,22 @@ public class DataLoader {
     }
 
 
+    /**
+     * parse all the daxes and cpus, and save them to the repository selected by {@link com.qiujie.Constants#REPOSITORY}
+     */
     public static void upload() {
-        RedisUtil.flushDB();
-        uploadCpus();
-        uploadDaxs();
+        WorkflowRepository.getInstance().save(getCpus(), getDaxs());
     }
 
-    private static void uploadCpus() {
-        RedisUtil.set(CPUS, getCpus());
-    }
-
-    private static void uploadDaxs() {
+    private static List<Dax> getDaxs() {
+        List<Dax> list = new ArrayList<>();
         File dir = new File(DAX_DIR);
         for (File file : Objects.requireNonNull(dir.listFiles())) {
-            if (file.getName().endsWith(".xml")) {
-                Dax dax = DaxParser.parse(file);
-                RedisUtil.set(dax.getName(), dax);
+            if (file.getName().endsWith(".xml") || file.getName().endsWith(DaxParser.BINARY_EXT)) {
+                list.add(DaxParser.parse(file));
             }
         }
+        return list;
     }
 
 
@@ -1,18 +1,265 @@
 package com.qiujie.util;
 
+import com.qiujie.entity.CompiledDax;
 import com.qiujie.entity.Dax;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
 
-import java.io.IOException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class DaxParser {
 
+    private static final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    public static final String BINARY_EXT = ".bdax";
+
+    /**
+     * Parse a dax file, either xml or binary ({@link #BINARY_EXT})
+     */
     public static Dax parse(java.io.File daxFile) {
+        if (daxFile.getName().endsWith(BINARY_EXT)) {
+            return parseBinary(daxFile).toDax();
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(daxFile.toPath()))) {
+            return parse(in, ExperimentUtil.getFilenameNoExt(daxFile));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Parse a binary dax file by mapping it, see {@link CompiledDax}
+     */
+    public static CompiledDax parseBinary(java.io.File daxFile) {
+        try (FileChannel channel = FileChannel.open(daxFile.toPath(), StandardOpenOption.READ)) {
+            return CompiledDax.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Write a dax in the binary format, see {@link CompiledDax}
+     */
+    public static void writeBinary(Dax dax, OutputStream os) throws IOException {
+        CompiledDax.compile(dax).write(os);
+    }
+
+    public static void writeBinary(Dax dax, java.io.File file) {
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+            writeBinary(dax, os);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Parse an xml dax in one streaming pass, without building a document tree.
+     * Jobs are indexed by their position, and the input files of a job are split into local and
+     * pred input files with a global file name -> producer jobs index, so the cost is linear in
+     * the size of the file even for 10k-100k job workflows with large fan-in.
+     *
+     * @param name the dax name, which prefixes the job names
+     */
+    public static Dax parse(InputStream in, String name) {
+        List<Dax.Job> jobList = new ArrayList<>();
+        Map<String, Integer> jobIndexMap = new HashMap<>();
+        List<List<Dax.File>> inputFileLists = new ArrayList<>();
+        // file name -> indices of the jobs that output it
+        Map<String, int[]> producerMap = new HashMap<>();
+        // parent index << 32 | child index, to skip duplicate edges without scanning the lists
+        Set<Long> edgeSet = new HashSet<>();
+
+        try {
+            XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(in);
+            try {
+                int depth = 0;
+                Dax.Job job = null;
+                List<Dax.File> inputFileList = null;
+                Set<String> fileNameSet = null; // avoid duplicate file
+                int childIndex = -1;
+                boolean inChild = false;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (depth == 2 && job != null) {
+                            Integer previous = jobIndexMap.get(job.getName());
+                            if (previous == null) {
+                                jobIndexMap.put(job.getName(), jobList.size());
+                                jobList.add(job);
+                                inputFileLists.add(inputFileList);
+                            } else {
+                                jobList.set(previous, job);
+                                inputFileLists.set(previous, inputFileList);
+                            }
+                            job = null;
+                        }
+                        if (depth == 2) {
+                            inChild = false;
+                        }
+                        depth--;
+                        continue;
+                    }
+                    if (event != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    depth++;
+                    String element = reader.getLocalName();
+                    if (depth == 2) {
+                        switch (element.toLowerCase()) {
+                            case "job":
+                                String id = reader.getAttributeValue(null, "id");
+                                double runtime = Math.max(Double.parseDouble(reader.getAttributeValue(null, "runtime")), 0);
+                                job = new Dax.Job().setName(name + "_" + id).setLength((long) runtime);
+                                inputFileList = new ArrayList<>();
+                                fileNameSet = new HashSet<>();
+                                break;
+                            case "child":
+                                Integer index = jobIndexMap.get(name + "_" + reader.getAttributeValue(null, "ref"));
+                                inChild = index != null;
+                                childIndex = inChild ? index : -1;
+                                break;
+                        }
+                    } else if (depth == 3 && job != null && element.equalsIgnoreCase("uses")) {
+                        String file = reader.getAttributeValue(null, "file");
+                        if (file == null) {
+                            throw new IllegalStateException("File name not found");
+                        }
+                        String link = reader.getAttributeValue(null, "link");
+                        double size = Math.max(Double.parseDouble(reader.getAttributeValue(null, "size")), 0);
+                        if ("input".equals(link)) {
+                            if (fileNameSet.add(file)) {
+                                inputFileList.add(new Dax.File().setName(file).setSize(size));
+                            }
+                        } else if ("output".equals(link)) {
+                            if (fileNameSet.add(file)) {
+                                job.getOutputFileList().add(new Dax.File().setName(file).setSize(size));
+                            }
+                        } else {
+                            throw new IllegalStateException("Cannot identify file type");
+                        }
+                    } else if (depth == 3 && inChild) {
+                        Integer parentIndex = jobIndexMap.get(name + "_" + reader.getAttributeValue(null, "ref"));
+                        if (parentIndex != null && edgeSet.add(((long) parentIndex << 32) | childIndex)) {
+                            jobList.get(parentIndex).getChildList().add(jobList.get(childIndex).getName());
+                            jobList.get(childIndex).getParentList().add(jobList.get(parentIndex).getName());
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+
+        for (int i = 0; i < jobList.size(); i++) {
+            for (Dax.File file : jobList.get(i).getOutputFileList()) {
+                int[] producers = producerMap.get(file.getName());
+                if (producers == null) {
+                    producerMap.put(file.getName(), new int[]{i});
+                } else {
+                    int[] extended = Arrays.copyOf(producers, producers.length + 1);
+                    extended[producers.length] = i;
+                    producerMap.put(file.getName(), extended);
+                }
+            }
+        }
+        setDepth(jobList, jobIndexMap);
+        identifyInputFile(jobList, jobIndexMap, inputFileLists, producerMap);
+        return new Dax(name, jobList);
+    }
+
+    /**
+     * Set the depth of each job, the longest path from an entry job
+     */
+    private static void setDepth(List<Dax.Job> jobList, Map<String, Integer> jobIndexMap) {
+        int[] inDegree = new int[jobList.size()];
+        int[] queue = new int[jobList.size()];
+        int head = 0, tail = 0;
+        for (int i = 0; i < jobList.size(); i++) {
+            Dax.Job job = jobList.get(i);
+            inDegree[i] = job.getParentList().size();
+            job.setDepth(0);
+            if (inDegree[i] == 0) {
+                queue[tail++] = i;
+            }
+        }
+
+        // topological sort
+        while (head < tail) {
+            Dax.Job job = jobList.get(queue[head++]);
+            int currentDepth = job.getDepth();
+            for (String childName : job.getChildList()) {
+                int childIndex = jobIndexMap.get(childName);
+                Dax.Job child = jobList.get(childIndex);
+                if (child.getDepth() < currentDepth + 1) {
+                    child.setDepth(currentDepth + 1);
+                }
+                if (--inDegree[childIndex] == 0) {
+                    queue[tail++] = childIndex;
+                }
+            }
+        }
+    }
+
+    /**
+     * identify local or pred input file: an input file is a pred input file of every parent that outputs it
+     */
+    private static void identifyInputFile(List<Dax.Job> jobList, Map<String, Integer> jobIndexMap, List<List<Dax.File>> inputFileLists, Map<String, int[]> producerMap) {
+        // parentMark[p] == i + 1 iff p is a parent of job i
+        int[] parentMark = new int[jobList.size()];
+        Map<Integer, List<Dax.File>> predInputFilesMap = new HashMap<>();
+        for (int i = 0; i < jobList.size(); i++) {
+            Dax.Job job = jobList.get(i);
+            for (String parent : job.getParentList()) {
+                parentMark[jobIndexMap.get(parent)] = i + 1;
+            }
+            predInputFilesMap.clear();
+            for (Dax.File file : inputFileLists.get(i)) {
+                boolean pred = false;
+                int[] producers = producerMap.get(file.getName());
+                if (producers != null) {
+                    for (int producer : producers) {
+                        if (parentMark[producer] == i + 1) {
+                            predInputFilesMap.computeIfAbsent(producer, k -> new ArrayList<>()).add(file);
+                            pred = true;
+                        }
+                    }
+                }
+                if (!pred) {
+                    job.getLocalInputFileList().add(file);
+                }
+            }
+            for (String parent : job.getParentList()) {
+                List<Dax.File> fileList = predInputFilesMap.get(jobIndexMap.get(parent));
+                job.getPredInputFilesMap().put(parent, fileList == null ? List.of() : fileList.stream().toList());
+            }
+        }
+    }
+
+    /**
+     * The previous JDOM based parser, kept as the reference for {@link com.qiujie.benchmark.DaxParserBenchmark}
+     */
+    public static Dax parseDom(java.io.File daxFile) {
         Document dom;
         try {
             dom = new SAXBuilder().build(daxFile);
@@ -81,9 +328,6 @@ public class DaxParser {
         return new Dax(name, new ArrayList<>(JobMap.values()));
     }
 
-    /**
-     * Set the depth of each job
-     */
     private static void setDepth(Map<String, Dax.Job> jobMap) {
 
         Map<String, Integer> inDegree = new HashMap<>();
@@ -121,10 +365,6 @@ public class DaxParser {
         }
     }
 
-
-    /**
-     * identify local or pred input file
-     */
     private static void identifyInputFile(Map<String, List<Dax.File>> jobInputFileListMap, Map<String, Dax.Job> jobMap) {
         for (Dax.Job job : jobMap.values()) {
             Set<String> parentsOutputFileNameSet = job.getParentList().stream().flatMap(parent -> jobMap.get(parent).getOutputFileList().stream()).map(Dax.File::getName).collect(Collectors.toSet());
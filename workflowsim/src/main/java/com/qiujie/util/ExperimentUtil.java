@@ -10,12 +10,16 @@ import com.qiujie.core.WorkflowDatacenter;
 import com.qiujie.entity.*;
 import com.qiujie.entity.Job;
 import com.qiujie.entity.Dax;
+import com.qiujie.repository.WorkflowRepository;
 import io.bretty.console.table.Alignment;
 import io.bretty.console.table.ColumnFormatter;
 import io.bretty.console.table.Precision;
 import io.bretty.console.table.Table;
 import lombok.extern.slf4j.Slf4j;
 import org.cloudbus.cloudsim.*;
+import org.cloudbus.cloudsim.core.CalendarEventQueue;
+import org.cloudbus.cloudsim.core.EventQueue;
+import org.cloudbus.cloudsim.core.FutureEventList;
 import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
 import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
@@ -39,6 +43,13 @@ import static com.qiujie.Constants.*;
 @Slf4j
 public class ExperimentUtil {
 
+    public static FutureEventList createFutureEventList() {
+        return switch (FUTURE_EVENT_LIST) {
+            case HEAP -> new EventQueue();
+            case CALENDAR -> new CalendarEventQueue();
+        };
+    }
+
     public static List<Datacenter> createDatacenters() throws Exception {
         List<Datacenter> list = new ArrayList<>();
         int hostId = 0;
@@ -67,7 +78,7 @@ public class ExperimentUtil {
      */
     public static List<Vm> createVms(final ContinuousDistribution random, int userId) {
         List<Vm> list = new ArrayList<>();
-        List<Cpu> cpuList = RedisUtil.get(CPUS);
+        List<Cpu> cpuList = WorkflowRepository.getInstance().getCpus();
         //create VMs
         for (int i = 0; i < VMS; i++) {
             Cpu cpu = getRandomElement(random, cpuList);
@@ -88,33 +99,33 @@ public class ExperimentUtil {
     }
 
 
-    public static Workflow createWorkflow(String name) {
-        Dax dax = RedisUtil.get(name);
-        Map<String, Job> jobMap = new HashMap<>();
-        for (Dax.Job daxJob : dax.getJobList()) {
-            Job job = new Job(daxJob.getName(), daxJob.getLength()).setDepth(daxJob.getDepth());
-            for (Dax.File daxFile : daxJob.getLocalInputFileList()) {
-                job.getLocalInputFileList().add(new com.qiujie.entity.File(daxFile.getName(), daxFile.getSize()));
-            }
-            for (Dax.File daxFile : daxJob.getOutputFileList()) {
-                job.getOutputFileList().add(new com.qiujie.entity.File(daxFile.getName(), daxFile.getSize()));
-            }
-            jobMap.put(daxJob.getName(), job);
+    // compiled daxes by name, least recently used first
+    private static final Map<String, CompiledDax> compiledDaxCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledDax> eldest) {
+            return size() > DAX_CACHE_CAPACITY;
         }
-        for (Dax.Job daxJob : dax.getJobList()) {
-            Job job = jobMap.get(daxJob.getName());
-            for (Map.Entry<String, List<Dax.File>> entry : daxJob.getPredInputFilesMap().entrySet()) {
-                List<com.qiujie.entity.File> fileList = entry.getValue().stream().map(daxFile -> new com.qiujie.entity.File(daxFile.getName(), daxFile.getSize())).toList();
-                job.getPredInputFilesMap().put(jobMap.get(entry.getKey()), fileList);
+    };
+
+    public static CompiledDax getCompiledDax(String name) {
+        synchronized (compiledDaxCache) {
+            CompiledDax compiledDax = compiledDaxCache.get(name);
+            if (compiledDax == null) {
+                compiledDax = WorkflowRepository.getInstance().getCompiledDax(name);
+                if (compiledDax == null) {
+                    throw new IllegalArgumentException("Dax " + name + " not found in the workflow repository");
+                }
+                compiledDaxCache.put(name, compiledDax);
             }
-            List<Job> parentList = daxJob.getParentList().stream().map(jobMap::get).toList();
-            List<Job> childList = daxJob.getChildList().stream().map(jobMap::get).toList();
-            job.getParentList().addAll(parentList);
-            job.getChildList().addAll(childList);
+            return compiledDax;
         }
-        return new Workflow(name, new ArrayList<>(jobMap.values()));
     }
 
+    public static Workflow createWorkflow(String name) {
+        return getCompiledDax(name).instantiate();
+    }
+
+
     public static List<Workflow> createWorkflow(List<String> list) {
         List<Workflow> workflowList = new ArrayList<>();
         for (String name : list) {
@@ -218,10 +229,25 @@ public class ExperimentUtil {
     public static double calculatePredecessorDataTransferTime(Job job, Host host, Job parentJob, Host parentHost) {
         // No data transfer time is required if the job and its parent are on the same host.
         if (host.getId() == parentHost.getId()) return 0;
-        double dataSize = job.getPredInputFilesMap().get(parentJob).stream().mapToDouble(com.qiujie.entity.File::getSize).sum();
+        return calculatePredecessorDataTransferTime(calculatePredecessorDataSize(job, parentJob), host, parentHost);
+    }
+
+    /**
+     * @param dataSize the size of the files the job receives from its parent, see {@link #calculatePredecessorDataSize(Job, Job)}
+     */
+    public static double calculatePredecessorDataTransferTime(double dataSize, Host host, Host parentHost) {
+        if (host.getId() == parentHost.getId()) return 0;
         return host.getDatacenter().getId() == parentHost.getDatacenter().getId() ? dataSize / INTRA_BANDWIDTH : dataSize / INTER_BANDWIDTH;
     }
 
+    public static double calculatePredecessorDataSize(Job job, Job parentJob) {
+        double dataSize = 0;
+        for (com.qiujie.entity.File file : job.getPredInputFilesMap().get(parentJob)) {
+            dataSize += file.getSize();
+        }
+        return dataSize;
+    }
+
     /**
      * Calculate reliability based on failure rate (lambda) and execution time using exponential decay model
      *
@@ -234,60 +260,6 @@ public class ExperimentUtil {
     }
 
 
-    /**
-     * Calculate the electricity cost
-     *
-     * @param elecPrice $/kWh
-     * @param startTime s
-     * @param endTime   s
-     * @param power     watt
-     */
-    public static double calculateElecCost(List<Double> elecPrice, double startTime, double endTime, double power) {
-        double totalCost = 0.0;
-        double currentTime = startTime / 3600.0;
-        if (startTime > endTime) {
-            throw new IllegalStateException(String.format("startTime > endTime: %s > %s", startTime, endTime));
-        }
-        double remainingDuration = (endTime - startTime) / 3600.0;
-        while (remainingDuration > 0) {
-            int hourIndex = (int) (Math.floor(currentTime) % elecPrice.size());
-            double nextHourTime = Math.floor(currentTime) + 1.0;
-            double availableDuration = Math.min(nextHourTime - currentTime, remainingDuration);
-            double electricityUsed = (power * availableDuration) / 1000.0; // kWh
-            totalCost += electricityUsed * elecPrice.get(hourIndex);
-            currentTime += availableDuration;
-            remainingDuration -= availableDuration;
-        }
-        return totalCost;
-    }
-
-    /**
-     * calculate avg elec price
-     *
-     * @param elecPrice $/kWh
-     * @param startTime s
-     * @param endTime   s
-     */
-    public static double calculateAvgElecPrice(List<Double> elecPrice, double startTime, double endTime) {
-        double totalCost = 0.0;
-        double currentTime = startTime / 3600.0;
-        if (startTime >= endTime) {
-            int hourIndex = (int) (Math.floor(currentTime) % elecPrice.size());
-            return elecPrice.get(hourIndex);
-        }
-        double duration = (endTime - startTime) / 3600.0;
-        double remainingDuration = duration;
-        while (remainingDuration > 0) {
-            int hourIndex = (int) (Math.floor(currentTime) % elecPrice.size());
-            double nextHourTime = Math.floor(currentTime) + 1.0;
-            double availableDuration = Math.min(nextHourTime - currentTime, remainingDuration);
-            totalCost += availableDuration * elecPrice.get(hourIndex);
-            currentTime += availableDuration;
-            remainingDuration -= availableDuration;
-        }
-        return totalCost / duration;
-    }
-
     /**
      * @param maxValue
      * @Returns a random integer in the range [0, maxValue).
@@ -1,7 +1,12 @@
 package generator;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import com.qiujie.util.DaxParser;
+import com.qiujie.util.ExperimentUtil;
 
 import generator.app.Application;
 import generator.app.CyberShake;
@@ -18,7 +23,13 @@ import generator.app.SIPHT;
 public class RunAll {
     public static void run(Application app, File outfile, String... args) throws Exception {
         app.generateWorkflow(args);
-        app.printWorkflow(new FileOutputStream(outfile));
+        if (outfile.getName().endsWith(DaxParser.BINARY_EXT)) {
+            try (OutputStream os = new BufferedOutputStream(new FileOutputStream(outfile))) {
+                app.printBinaryWorkflow(os, ExperimentUtil.getFilenameNoExt(outfile));
+            }
+        } else {
+            app.printWorkflow(new FileOutputStream(outfile));
+        }
     }
 
     public static void main(String[] args) throws Exception {
@@ -1,10 +1,10 @@
 package generator.app;
 
+import com.qiujie.util.DaxParser;
 import generator.util.Distribution;
 import org.griphyn.vdl.dax.ADAG;
 
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
+import java.io.*;
 import java.util.Map;
 import java.util.HashMap;
 
@@ -54,6 +54,26 @@ public abstract class AbstractApplication implements Application {
         this.dax.toXML(new OutputStreamWriter(os), "", null);
     }
 
+    /**
+     * Print the workflow in the binary dax format of {@link com.qiujie.entity.CompiledDax}.
+     * The xml is streamed through a temporary file and parsed by {@link DaxParser}, so the
+     * binary dax is the same as parsing the xml printed by {@link #printWorkflow(OutputStream)}.
+     */
+    @Override
+    public void printBinaryWorkflow(OutputStream os, String name) throws Exception {
+        File tmp = File.createTempFile("dax", ".xml");
+        try {
+            try (OutputStream xml = new BufferedOutputStream(new FileOutputStream(tmp))) {
+                printWorkflow(xml);
+            }
+            try (InputStream in = new BufferedInputStream(new FileInputStream(tmp))) {
+                DaxParser.writeBinary(DaxParser.parse(in, name), os);
+            }
+        } finally {
+            tmp.delete();
+        }
+    }
+
     public ADAG getDAX() {
         return this.dax;
     }
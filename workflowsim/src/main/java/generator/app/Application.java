@@ -12,4 +12,5 @@ public interface Application {
     public ADAG getDAX();
     public void generateWorkflow(String... args) throws Exception;
     public void printWorkflow(OutputStream os) throws Exception;
+    public void printBinaryWorkflow(OutputStream os, String name) throws Exception;
 }
@@ -406,11 +406,8 @@ public class Datacenter extends SimEntity {
 		}
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = guest.getId();
-			data[2] = result ? CloudSimTags.TRUE : CloudSimTags.FALSE;
-			send(guest.getUserId(), CloudSim.getMinTimeBetweenEvents(), CloudActionTags.VM_CREATE_ACK, data);
+			sendValues(guest.getUserId(), CloudSim.getMinTimeBetweenEvents(), CloudActionTags.VM_CREATE_ACK,
+					getId(), guest.getId(), result ? CloudSimTags.TRUE : CloudSimTags.FALSE);
 		}
 
 		if (result) {
@@ -10,7 +10,7 @@ package org.cloudbus.cloudsim;
 
 import org.cloudbus.cloudsim.core.*;
 import org.cloudbus.cloudsim.lists.CloudletList;
-import org.cloudbus.cloudsim.lists.VmList;
+import org.cloudbus.cloudsim.lists.IdIndex;
 
 import java.util.*;
 
@@ -72,6 +72,12 @@ public class DatacenterBroker extends SimEntity {
 	/** Next guest to which send the cloudlet */
 	private int guestIndex = 0;
 
+	/** The guests of {@link #vmList} indexed by id. */
+	private final IdIndex<GuestEntity> guestIdIndex = new IdIndex<>();
+
+	/** The guests of {@link #vmsCreatedList} indexed by id. */
+	private final IdIndex<GuestEntity> createdGuestIdIndex = new IdIndex<>();
+
 	/**
 	 * Created a new DatacenterBroker object.
 	 *
@@ -110,6 +116,9 @@ public class DatacenterBroker extends SimEntity {
 	 */
 	public void submitGuestList(List<? extends GuestEntity> list) {
 		getGuestList().addAll(list);
+		for (GuestEntity guest : list) {
+			guestIdIndex.put(guest.getId(), guest);
+		}
 	}
 
 	/**
@@ -217,16 +226,15 @@ public class DatacenterBroker extends SimEntity {
 	 * @post $none
 	 */
 	protected void processVmCreateAck(SimEvent ev) {
-		int[] data = (int[]) ev.getData();
-		int datacenterId = data[0];
-		int vmId = data[1];
-		int result = data[2];
+		int datacenterId = ev.getIntValue(0);
+		int vmId = ev.getIntValue(1);
+		int result = ev.getIntValue(2);
 
-		GuestEntity guest = VmList.getById(getGuestList(), vmId);
+		GuestEntity guest = getGuestById(vmId);
 
 		if (result == CloudSimTags.TRUE) {
 			getVmsToDatacentersMap().put(vmId, datacenterId);
-			getGuestsCreatedList().add(guest);
+			addGuestCreated(guest);
 			Log.printlnConcat(CloudSim.clock(), ": ", getName(), ": ", guest.getClassName(), " #", vmId,
 					" has been created in Datacenter #", datacenterId, ", ", guest.getHost().getClassName(), " #",
 					guest.getHost().getId());
@@ -355,9 +363,9 @@ public class DatacenterBroker extends SimEntity {
 			if (cloudlet.getGuestId() == -1) {
 				vm = getGuestsCreatedList().get(guestIndex);
 			} else { // submit to the specific vm
-				vm = VmList.getById(getGuestsCreatedList(), cloudlet.getGuestId());
+				vm = getCreatedGuestById(cloudlet.getGuestId());
 				if (vm == null) { // vm was not created
-					vm = VmList.getById(getGuestList(), cloudlet.getGuestId()); // check if exists in the submitted list
+					vm = getGuestById(cloudlet.getGuestId()); // check if exists in the submitted list
 
 					if(!Log.isDisabled()) {
 						if (vm != null) {
@@ -401,7 +409,7 @@ public class DatacenterBroker extends SimEntity {
 			sendNow(getVmsToDatacentersMap().get(vm.getId()), CloudActionTags.VM_DESTROY, vm);
 		}
 
-		getGuestsCreatedList().clear();
+		clearGuestsCreated();
 	}
 
 	/**
@@ -439,6 +447,20 @@ public class DatacenterBroker extends SimEntity {
 	 */
 	protected <T extends GuestEntity> void setGuestList(List<T> vmList) {
 		this.vmList = vmList;
+		guestIdIndex.clear();
+		for (GuestEntity guest : vmList) {
+			guestIdIndex.put(guest.getId(), guest);
+		}
+	}
+
+	/**
+	 * Gets a guest of the vm list by id, without scanning the list.
+	 *
+	 * @param id the guest id
+	 * @return the guest, or $null if there is none with the id
+	 */
+	public GuestEntity getGuestById(int id) {
+		return guestIdIndex.get(id);
 	}
 
 	/**
@@ -523,6 +545,49 @@ public class DatacenterBroker extends SimEntity {
 	 */
 	protected <T extends GuestEntity> void setGuestsCreatedList(List<T> vmsCreatedList) {
 		this.vmsCreatedList = vmsCreatedList;
+		createdGuestIdIndex.clear();
+		for (GuestEntity guest : vmsCreatedList) {
+			createdGuestIdIndex.put(guest.getId(), guest);
+		}
+	}
+
+	/**
+	 * Gets a created guest by id, without scanning the vms created list.
+	 *
+	 * @param id the guest id
+	 * @return the guest, or $null if no guest with the id was created
+	 */
+	public GuestEntity getCreatedGuestById(int id) {
+		return createdGuestIdIndex.get(id);
+	}
+
+	/**
+	 * Adds a guest to the vms created list.
+	 *
+	 * @param guest the created guest
+	 */
+	@SuppressWarnings("unchecked")
+	protected void addGuestCreated(GuestEntity guest) {
+		((List<GuestEntity>) vmsCreatedList).add(guest);
+		createdGuestIdIndex.put(guest.getId(), guest);
+	}
+
+	/**
+	 * Removes a guest from the vms created list.
+	 *
+	 * @param guest the destroyed guest
+	 */
+	protected void removeGuestCreated(GuestEntity guest) {
+		vmsCreatedList.remove(guest);
+		createdGuestIdIndex.remove(guest.getId());
+	}
+
+	/**
+	 * Removes all guests from the vms created list.
+	 */
+	protected void clearGuestsCreated() {
+		vmsCreatedList.clear();
+		createdGuestIdIndex.clear();
 	}
 
 	/**
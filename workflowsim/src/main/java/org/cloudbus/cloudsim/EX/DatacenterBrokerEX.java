@@ -9,7 +9,6 @@ import org.cloudbus.cloudsim.EX.vm.VmStatus;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.*;
-import org.cloudbus.cloudsim.lists.VmList;
 
 import java.math.BigDecimal;
 import java.util.*;
@@ -164,10 +163,9 @@ public class DatacenterBrokerEX extends DatacenterBroker {
 
         CloudSimTags tag = ev.getTag();
         if (tag == CloudActionTags.VM_CREATE_ACK) {
-            int[] data = (int[]) ev.getData();
-            int vmId = data[1];
+            int vmId = ev.getIntValue(1);
 
-            GuestEntity vm = VmList.getById(getGuestList(), vmId);
+            GuestEntity vm = getGuestById(vmId);
             if (vm.isBeingInstantiated()) {
                 vm.setBeingInstantiated(false);
             }
@@ -311,13 +309,13 @@ public class DatacenterBrokerEX extends DatacenterBroker {
         int result = data[2];
 
         if (result == CloudSimTags.TRUE) {
-            GuestEntity vm = VmList.getById(getGuestsCreatedList(), vmId);
+            GuestEntity vm = getCreatedGuestById(vmId);
 
             // One more ack. to consider
             incrementVmDesctructsAcks();
 
             // Remove the vm from the created list
-            getGuestsCreatedList().remove(vm);
+            removeGuestCreated(vm);
             finilizeVM(vm);
 
             // Kill all cloudlets associated with this VM
@@ -12,6 +12,7 @@ import org.cloudbus.cloudsim.container.core.Container;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.GuestEntity;
 import org.cloudbus.cloudsim.core.HostEntity;
+import org.cloudbus.cloudsim.lists.IdIndex;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -58,6 +59,13 @@ public abstract class VmAllocationPolicy {
 	 */
 	private Map<String, HostEntity> guestTable;
 
+	/** The same map as {@link #guestTable}, indexed by user id and then by guest id,
+	 * so that {@link #getHost(int, int)} does not build a guest UID on every lookup.
+	 * Both are updated by {@link #putGuestHost(GuestEntity, HostEntity)} and
+	 * {@link #deallocateHostForGuest(GuestEntity)}.
+	 */
+	private final IdIndex<IdIndex<HostEntity>> guestHostIndex = new IdIndex<>();
+
 	/**
 	 * Creates a new VmAllocationPolicy object.
 	 * 
@@ -112,7 +120,7 @@ public abstract class VmAllocationPolicy {
 		}
 
 		if (host.guestCreate(guest)) { // if vm has been successfully created in the host
-			getGuestTable().put(guest.getUid(), host);
+			putGuestHost(guest, host);
 			Log.printlnConcat(CloudSim.clock(), ": ", datacenterName, ".guestAllocator: ", guest.getClassName(), " #", guest.getId(), " has been allocated to ", host.getClassName(), " #", host.getId());
 			return true;
 		}
@@ -146,6 +154,10 @@ public abstract class VmAllocationPolicy {
 	 */
 	public void deallocateHostForGuest(GuestEntity guest) {
 		HostEntity host = getGuestTable().remove(guest.getUid());
+		IdIndex<HostEntity> userIndex = guestHostIndex.get(guest.getUserId());
+		if (userIndex != null) {
+			userIndex.remove(guest.getId());
+		}
 		if (host != null) {
 			host.guestDestroy(guest);
 		}
@@ -167,7 +179,26 @@ public abstract class VmAllocationPolicy {
 
 
 	public Map<String, HostEntity> getGuestTable() { return guestTable; }
-	protected void setGuestTable(Map<String, HostEntity> guestTable) { this.guestTable = guestTable; }
+	protected void setGuestTable(Map<String, HostEntity> guestTable) {
+		this.guestTable = guestTable;
+		guestHostIndex.clear();
+	}
+
+	/**
+	 * Records the host allocated to a guest in the guest table.
+	 *
+	 * @param guest the guest
+	 * @param host  the host allocated to the guest
+	 */
+	public void putGuestHost(GuestEntity guest, HostEntity host) {
+		getGuestTable().put(guest.getUid(), host);
+		IdIndex<HostEntity> userIndex = guestHostIndex.get(guest.getUserId());
+		if (userIndex == null) {
+			userIndex = new IdIndex<>();
+			guestHostIndex.put(guest.getUserId(), userIndex);
+		}
+		userIndex.put(guest.getId(), host);
+	}
 
 	/**
 	 * Get the host that is executing the given VM.
@@ -177,10 +208,10 @@ public abstract class VmAllocationPolicy {
 	 * @pre $none
 	 * @post $none
 	 */
-	public HostEntity getHost(GuestEntity guest) { return getGuestTable().get(guest.getUid()); }
+	public HostEntity getHost(GuestEntity guest) { return getHost(guest.getId(), guest.getUserId()); }
 
 	@Deprecated
-	public Host getHost(Vm vm) { return (Host) getGuestTable().get(vm.getUid()); }
+	public Host getHost(Vm vm) { return (Host) getHost(vm.getId(), vm.getUserId()); }
 
 	/**
 	 * Get the host that is executing the given VM belonging to the given user.
@@ -191,7 +222,10 @@ public abstract class VmAllocationPolicy {
 	 * @pre $none
 	 * @post $none
 	 */
-	public HostEntity getHost(int vmId, int userId) { return getGuestTable().get(GuestEntity.getUid(userId, vmId)); };
+	public HostEntity getHost(int vmId, int userId) {
+		IdIndex<HostEntity> userIndex = guestHostIndex.get(userId);
+		return userIndex == null ? null : userIndex.get(vmId);
+	}
 
 	/**
 	 * Sets the host list.
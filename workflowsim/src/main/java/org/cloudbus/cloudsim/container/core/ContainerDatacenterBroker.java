@@ -142,7 +142,7 @@ public class ContainerDatacenterBroker extends DatacenterBroker {
             getContainersToVmsMap().put(containerId, vm.getId());
             getContainersCreatedList().add(guest);
 
-            int hostId = VmList.getById(getGuestsCreatedList(), vm.getId()).getHost().getId();
+            int hostId = getCreatedGuestById(vm.getId()).getHost().getId();
             Log.printlnConcat(CloudSim.clock(), ": ", getName(), ": The Container #", containerId,
                      ", is created on Vm #",vm.getId()
                     , ", On Host#", hostId);
@@ -165,11 +165,11 @@ public class ContainerDatacenterBroker extends DatacenterBroker {
         int datacenterId = map.datacenterId();
         GuestEntity containerVm = (ContainerVm) map.vm();
         int vmId = containerVm.getId();
-        GuestEntity guest = VmList.getById(getGuestsCreatedList(), vmId);
+        GuestEntity guest = getCreatedGuestById(vmId);
 
-        getGuestList().add(containerVm);
+        submitGuestList(List.of(containerVm));
         getVmsToDatacentersMap().put(vmId, datacenterId);
-        getGuestsCreatedList().add(containerVm);
+        addGuestCreated(containerVm);
         Log.printlnConcat(CloudSim.clock(), ": ", getName(), ": ", guest.getClassName(), " #", vmId,
                     " has been created in Datacenter #", datacenterId, ", Host #",
                     guest.getHost().getId());
@@ -183,16 +183,15 @@ public class ContainerDatacenterBroker extends DatacenterBroker {
      * @post $none
      */
     protected void processVmCreateAck(SimEvent ev) {
-        int[] data = (int[]) ev.getData();
-        int datacenterId = data[0];
-        int vmId = data[1];
-        int result = data[2];
+        int datacenterId = ev.getIntValue(0);
+        int vmId = ev.getIntValue(1);
+        int result = ev.getIntValue(2);
 
         if (result == CloudSimTags.TRUE) {
-            GuestEntity guest = VmList.getById(getGuestList(), vmId);
+            GuestEntity guest = getGuestById(vmId);
 
             getVmsToDatacentersMap().put(vmId, datacenterId);
-            getGuestsCreatedList().add(guest);
+            addGuestCreated(guest);
             Log.printlnConcat(CloudSim.clock(), ": ", getName(), ": ", guest.getClassName(), " #", vmId,
                     " has been created in Datacenter #", datacenterId, ", Host #",
                     guest.getHost().getId());
@@ -561,7 +561,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
                 Log.printlnConcat("Couldn't restore VM #", vm.getId(), " on host #", host.getId());
                 System.exit(0);
             }
-            getGuestTable().put(vm.getUid(), host);
+            putGuestHost(vm, host);
         }
     }
 
@@ -667,7 +667,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
                     System.exit(0);
                 }
 
-                getGuestTable().put(vm.getUid(), host);
+                putGuestHost(vm, host);
             }
 //            vm.containerDestroyAll();
 //            vm.reallocateMigratingInContainers();
@@ -694,7 +694,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
 
                 }
                 getDatacenter().getContainerAllocationPolicy().
-                        getGuestTable().put(container.getUid(), vm);
+                        putGuestHost(container, vm);
 //            container.setVm(vm);
 
             }
@@ -0,0 +1,435 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+
+import java.util.*;
+
+/**
+ * A calendar queue (R. Brown, 1988) implementation of the {@link FutureEventList}. Events are
+ * hashed by time into an array of "day" buckets, each one a sorted doubly linked list, so insertion
+ * and removal take O(1) amortised time as long as the bucket width follows the event density. The
+ * number of buckets doubles or halves with the queue size, and the width is then re-estimated from
+ * the gaps between the earliest events.
+ * <p>
+ * Events are also indexed by source entity and tag, so {@link #cancel(int, Predicate)} and
+ * {@link #cancelAll(int, Predicate)} only visit the events sent by the given entity (and, for a
+ * {@link PredicateType}, only those with the selected tags) instead of scanning the whole queue.
+ * <p>
+ * The order in which events are polled is the same as {@link EventQueue}: increasing time, then
+ * increasing serial number. Events added with {@link #addEventFirst(SimEvent)} at the same time
+ * are polled in the order they were added.
+ *
+ * @see EventQueue
+ * @since CloudSim Toolkit 7.0
+ */
+public class CalendarEventQueue implements FutureEventList {
+
+	/** The minimal (and initial) number of buckets. It must be a power of two. */
+	private static final int MIN_BUCKETS = 16;
+
+	/** The number of earliest events used to estimate the bucket width. */
+	private static final int SAMPLE_SIZE = 25;
+
+	/** A queued event with its links in the bucket list and in the source/tag index. */
+	private static final class Node {
+		private final SimEvent event;
+		private Node prev;
+		private Node next;
+		private Node srcPrev;
+		private Node srcNext;
+
+		private Node(SimEvent event) {
+			this.event = event;
+		}
+	}
+
+	/** A incremental number used for event attribute */
+	private long serial = 0;
+
+	/** The first node of each bucket. */
+	private Node[] heads;
+
+	/** The last node of each bucket. */
+	private Node[] tails;
+
+	/** The number of buckets minus one, used to map a virtual bucket to a bucket. */
+	private int mask;
+
+	/** The time span covered by a bucket. */
+	private double width;
+
+	/** The virtual bucket (time / width) of the last event found by {@link #findMin()}. */
+	private long current;
+
+	/** The next event to be polled, or null if it has to be searched again. */
+	private Node min;
+
+	/** The number of queued events. */
+	private int size;
+
+	/** For each source entity id, the most recently added event of each tag. */
+	private final List<Map<CloudSimTags, Node>> index = new ArrayList<>();
+
+	public CalendarEventQueue() {
+		this(1.0);
+	}
+
+	/**
+	 * Creates an empty calendar queue.
+	 *
+	 * @param width the initial time span covered by a bucket; it is re-estimated as the queue grows
+	 */
+	public CalendarEventQueue(double width) {
+		if (width <= 0) {
+			throw new IllegalArgumentException("The bucket width should be positive, but is:" + width);
+		}
+		this.width = width;
+		allocate(MIN_BUCKETS);
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(new Node(newEvent));
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(new Node(newEvent));
+	}
+
+	@Override
+	public SimEvent peek() {
+		Node node = findMin();
+		return node == null ? null : node.event;
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (!CloudSim.running()) {
+			return null;
+		}
+		Node node = findMin();
+		if (node == null) {
+			return null;
+		}
+		remove(node);
+		return node.event;
+	}
+
+	@Override
+	public SimEvent cancel(int srcId, Predicate p) {
+		Node found = null;
+		for (Node head : candidates(srcId, p)) {
+			for (Node node = head; node != null; node = node.srcNext) {
+				if (p.match(node.event) && (found == null || node.event.compareTo(found.event) < 0)) {
+					found = node;
+				}
+			}
+		}
+		if (found == null) {
+			return null;
+		}
+		remove(found);
+		return found.event;
+	}
+
+	@Override
+	public boolean cancelAll(int srcId, Predicate p) {
+		int previousSize = size;
+		for (Node head : candidates(srcId, p)) {
+			Node node = head;
+			while (node != null) {
+				Node next = node.srcNext;
+				if (p.match(node.event)) {
+					remove(node);
+				}
+				node = next;
+			}
+		}
+		return previousSize > size;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public void clear() {
+		allocate(MIN_BUCKETS);
+		index.clear();
+		min = null;
+		current = 0;
+		size = 0;
+	}
+
+	@Override
+	public void print() {
+		int i = 0;
+		for (Node head : heads) {
+			for (Node node = head; node != null; node = node.next) {
+				Log.printlnConcat("[", i, "] -> ", node.event.toString());
+				i++;
+			}
+		}
+	}
+
+	/**
+	 * Gets the current time span covered by a bucket.
+	 *
+	 * @return the bucket width
+	 */
+	public double getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the current number of buckets.
+	 *
+	 * @return the number of buckets
+	 */
+	public int getBuckets() {
+		return heads.length;
+	}
+
+	private void allocate(int buckets) {
+		heads = new Node[buckets];
+		tails = new Node[buckets];
+		mask = buckets - 1;
+	}
+
+	private long virtualBucket(double time) {
+		return (long) (time / width);
+	}
+
+	private void insert(Node node) {
+		link(node);
+		linkIndex(node);
+		size++;
+		if (size > 2 * heads.length) {
+			resize(2 * heads.length);
+		}
+	}
+
+	private void remove(Node node) {
+		unlink(node);
+		unlinkIndex(node);
+		size--;
+		if (node == min) {
+			min = null;
+		}
+		if (size < heads.length / 2 && heads.length > MIN_BUCKETS) {
+			resize(heads.length / 2);
+		}
+	}
+
+	/**
+	 * Puts the node in its bucket, after all the nodes that are not greater. New events usually
+	 * go at the end of their bucket, so the bucket is walked backwards from its tail.
+	 */
+	private void link(Node node) {
+		long vb = virtualBucket(node.event.eventTime());
+		int b = (int) (vb & mask);
+		Node prev = tails[b];
+		while (prev != null && node.event.compareTo(prev.event) < 0) {
+			prev = prev.prev;
+		}
+		Node next = prev == null ? heads[b] : prev.next;
+		node.prev = prev;
+		node.next = next;
+		if (prev == null) {
+			heads[b] = node;
+		} else {
+			prev.next = node;
+		}
+		if (next == null) {
+			tails[b] = node;
+		} else {
+			next.prev = node;
+		}
+
+		if (min != null && node.event.compareTo(min.event) < 0) {
+			min = node;
+		}
+		if (vb < current) {
+			current = vb;
+		}
+	}
+
+	private void unlink(Node node) {
+		int b = (int) (virtualBucket(node.event.eventTime()) & mask);
+		if (node.prev == null) {
+			heads[b] = node.next;
+		} else {
+			node.prev.next = node.next;
+		}
+		if (node.next == null) {
+			tails[b] = node.prev;
+		} else {
+			node.next.prev = node.prev;
+		}
+		node.prev = null;
+		node.next = null;
+	}
+
+	private void linkIndex(Node node) {
+		int src = node.event.getSourceId();
+		while (index.size() <= src) {
+			index.add(null);
+		}
+		Map<CloudSimTags, Node> tags = index.get(src);
+		if (tags == null) {
+			tags = new HashMap<>();
+			index.set(src, tags);
+		}
+		Node head = tags.put(node.event.getTag(), node);
+		node.srcNext = head;
+		if (head != null) {
+			head.srcPrev = node;
+		}
+	}
+
+	private void unlinkIndex(Node node) {
+		if (node.srcPrev == null) {
+			Map<CloudSimTags, Node> tags = index.get(node.event.getSourceId());
+			if (node.srcNext == null) {
+				tags.remove(node.event.getTag());
+			} else {
+				tags.put(node.event.getTag(), node.srcNext);
+			}
+		} else {
+			node.srcPrev.srcNext = node.srcNext;
+		}
+		if (node.srcNext != null) {
+			node.srcNext.srcPrev = node.srcPrev;
+		}
+		node.srcPrev = null;
+		node.srcNext = null;
+	}
+
+	/**
+	 * Gets the index lists that may hold events of the given source matching the predicate.
+	 */
+	private Collection<Node> candidates(int srcId, Predicate p) {
+		if (srcId < 0 || srcId >= index.size() || index.get(srcId) == null) {
+			return Collections.emptyList();
+		}
+		Map<CloudSimTags, Node> tags = index.get(srcId);
+		if (p instanceof PredicateType type) {
+			List<Node> heads = new ArrayList<>();
+			for (CloudSimTags tag : type.getTags()) {
+				Node head = tags.get(tag);
+				if (head != null) {
+					heads.add(head);
+				}
+			}
+			return heads;
+		}
+		// the lists are modified while the caller walks them
+		return new ArrayList<>(tags.values());
+	}
+
+	/**
+	 * Finds the next event. Starting from the bucket of the last one, the buckets are visited in
+	 * order until one holds an event of the current "year"; if a whole year is empty, the earliest
+	 * bucket head is searched directly.
+	 */
+	private Node findMin() {
+		if (size == 0) {
+			return null;
+		}
+		if (min != null) {
+			return min;
+		}
+		for (int i = 0; i < heads.length; i++) {
+			long vb = current + i;
+			Node head = heads[(int) (vb & mask)];
+			if (head != null && virtualBucket(head.event.eventTime()) == vb) {
+				current = vb;
+				min = head;
+				return head;
+			}
+		}
+		Node best = null;
+		for (Node head : heads) {
+			if (head != null && (best == null || head.event.compareTo(best.event) < 0)) {
+				best = head;
+			}
+		}
+		current = virtualBucket(best.event.eventTime());
+		min = best;
+		return best;
+	}
+
+	/**
+	 * Changes the number of buckets, re-estimating the bucket width from the average gap between
+	 * the earliest distinct event times, and re-hashes all the events.
+	 */
+	private void resize(int buckets) {
+		Node[] oldHeads = heads;
+		double[] times = new double[size];
+		int n = 0;
+		for (Node head : oldHeads) {
+			for (Node node = head; node != null; node = node.next) {
+				times[n++] = node.event.eventTime();
+			}
+		}
+		double newWidth = estimateWidth(times);
+		if (newWidth > 0) {
+			width = newWidth;
+		}
+
+		allocate(buckets);
+		min = null;
+		current = Long.MAX_VALUE;
+		for (Node head : oldHeads) {
+			Node node = head;
+			while (node != null) {
+				Node next = node.next;
+				link(node);
+				node = next;
+			}
+		}
+	}
+
+	private double estimateWidth(double[] times) {
+		// keep the SAMPLE_SIZE smallest times in a max-heap
+		PriorityQueue<Double> sample = new PriorityQueue<>(SAMPLE_SIZE, Comparator.reverseOrder());
+		for (double time : times) {
+			if (sample.size() < SAMPLE_SIZE) {
+				sample.add(time);
+			} else if (time < sample.peek()) {
+				sample.poll();
+				sample.add(time);
+			}
+		}
+		double[] sorted = sample.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+		double sum = 0;
+		int gaps = 0;
+		for (int i = 1; i < sorted.length; i++) {
+			double gap = sorted[i] - sorted[i - 1];
+			if (gap > 0) {
+				sum += gap;
+				gaps++;
+			}
+		}
+		return gaps == 0 ? -1 : 3 * sum / gaps;
+	}
+}
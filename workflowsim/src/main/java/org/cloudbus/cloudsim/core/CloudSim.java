@@ -31,58 +31,37 @@ public class CloudSim {
 	/** The Constant CLOUDSIM_VERSION_STRING. */
 	private static final String CLOUDSIM_VERSION_STRING = "7.0";
 
-	/** The id of CIS entity. */
-	private static int cisId = -1;
-
-	/** The id of CloudSimShutdown entity. */
-	private static int shutdownId = -1;
-
-	/** The CIS object. */
-	private static CloudInformationService cis = null;
-
-	/** The Constant NOT_FOUND. */
-	private static final int NOT_FOUND = -1;
-
-	/** The trace flag. */
-	private static boolean traceFlag = false;
-
-	/** The calendar. */
-	private static Calendar calendar = null;
-
-	/** The termination time. */
-	private static double terminateAt = -1;
+	/**
+	 * The simulation context bound to each thread. A fresh, uninitialised context is created
+	 * lazily so that reading the clock before {@link #init(int, Calendar, boolean)} behaves as before.
+	 */
+	private static final ThreadLocal<SimulationContext> context = ThreadLocal.withInitial(SimulationContext::new);
 
-	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
-	private static double minTimeBetweenEvents = 0.01;
+	/**
+	 * Gets the simulation context bound to the calling thread.
+	 *
+	 * @return the current simulation context
+	 */
+	public static SimulationContext getContext() {
+		return context.get();
+	}
 
 	/**
-	 * Initialises all the common attributes.
+	 * Binds a simulation context to the calling thread. All the static methods of this class
+	 * invoked afterwards on this thread act on the given context.
 	 *
-	 * @param _calendar the _calendar
-	 * @param _traceFlag the _trace flag
-	 * @param numUser number of users
-	 * @throws Exception This happens when creating this entity before initialising CloudSim package
-	 *             or this entity name is <tt>null</tt> or empty
-	 * @pre $none
-	 * @post $none
+	 * @param simulationContext the context to bind
 	 */
-	private static void initCommonVariable(Calendar _calendar, boolean _traceFlag, int numUser)
-			throws Exception {
-		initialize();
-		// NOTE: the order for the below 3 lines are important
-		traceFlag = _traceFlag;
-
-		// Set the current Wall clock time as the starting time of
-		// simulation
-		if (_calendar == null) {
-			calendar = Calendar.getInstance();
-		} else {
-			calendar = _calendar;
-		}
+	public static void setContext(SimulationContext simulationContext) {
+		context.set(simulationContext);
+	}
 
-		// creates a CloudSimShutdown object
-		CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
-		shutdownId = shutdown.getId();
+	/**
+	 * Unbinds the simulation context from the calling thread, releasing the references it holds.
+	 * Worker threads that run many simulations should call it once a simulation is over.
+	 */
+	public static void clearContext() {
+		context.remove();
 	}
 
 	/**
@@ -107,18 +86,7 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag) {
-		try {
-			initCommonVariable(cal, traceFlag, numUser);
-
-			// create a GIS object
-			cis = new CloudInformationService("CloudInformationService");
-
-			// set all the above entity IDs
-			cisId = cis.getId();
-		} catch (Exception s) {
-			Log.println("CloudSim.init(): The simulation has been terminated due to an unexpected error");
-			Log.println(s.getMessage());
-		}
+		init(numUser, cal, traceFlag, SimulationContext.DEFAULT_MIN_TIME_BETWEEN_EVENTS);
 	}
 
 	/**
@@ -145,15 +113,37 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag, double minTimeBetweenEvents) {
-	    if (minTimeBetweenEvents <= 0) {
-		throw new IllegalArgumentException("The minimal time between events should be positive, but is:" + minTimeBetweenEvents);
-	    }
-
-	    init(numUser, cal, traceFlag);
-	    CloudSim.minTimeBetweenEvents = minTimeBetweenEvents;
+		init(numUser, cal, traceFlag, minTimeBetweenEvents, new EventQueue());
 	}
 
+	/**
+	 * Initialises CloudSim parameters with a given future event list. This method should be called
+	 * before creating any entities.
+	 *
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param minTimeBetweenEvents - the minimal period between events. Events within shorter periods
+	 * after the last event are discarded.
+	 * @param future the empty future event list the simulation uses, e.g. {@link EventQueue} (the
+	 *            default) or {@link CalendarEventQueue}
+	 * @see #init(int, Calendar, boolean, double)
+	 */
+	public static void init(int numUser, Calendar cal, boolean traceFlag, double minTimeBetweenEvents, FutureEventList future) {
+		if (minTimeBetweenEvents <= 0) {
+			throw new IllegalArgumentException("The minimal time between events should be positive, but is:" + minTimeBetweenEvents);
+		}
 
+		SimulationContext simulationContext = new SimulationContext();
+		setContext(simulationContext);
+		try {
+			simulationContext.init(numUser, cal, traceFlag, minTimeBetweenEvents, future);
+		} catch (Exception s) {
+			Log.println("CloudSim.init(): The simulation has been terminated due to an unexpected error");
+			Log.println(s.getMessage());
+		}
+	}
 
 	/**
 	 * Starts the execution of CloudSim simulation. It waits for complete execution of all entities,
@@ -172,16 +162,7 @@ public class CloudSim {
 	public static double startSimulation() throws NullPointerException {
 		Log.printlnConcat("Starting CloudSim version ", CLOUDSIM_VERSION_STRING);
 		try {
-			double clock = run();
-
-			// reset all static variables
-			cisId = -1;
-			shutdownId = -1;
-			cis = null;
-			calendar = null;
-			traceFlag = false;
-
-			return clock;
+			return getContext().startSimulation();
 		} catch (IllegalArgumentException e) {
 			e.printStackTrace();
 			throw new NullPointerException("CloudSim.startCloudSimulation() :"
@@ -215,8 +196,7 @@ public class CloudSim {
 	 * @return true, if successful; false otherwise.
 	 */
 	public static void terminateSimulation() {
-		running = false;
-		printMessage("Simulation: Reached termination time.");
+		getContext().terminateSimulation();
 	}
 
 	/**
@@ -226,21 +206,15 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean terminateSimulation(double time) {
-		if (time <= clock) {
-			return false;
-		} else {
-			terminateAt = time;
-		}
-		return true;
+		return getContext().terminateSimulation(time);
 	}
 
-
 	/**
 	 * Returns the minimum time between events. Events within shorter periods after the last event are discarded.
 	 * @return the minimum time between events.
 	 */
 	public static double getMinTimeBetweenEvents() {
-	    return minTimeBetweenEvents;
+		return getContext().getMinTimeBetweenEvents();
 	}
 
 	/**
@@ -251,13 +225,7 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static Calendar getSimulationCalendar() {
-		// make a new copy
-		Calendar clone = calendar;
-		if (calendar != null) {
-			clone = (Calendar) calendar.clone();
-		}
-
-		return clone;
+		return getContext().getSimulationCalendar();
 	}
 
 	/**
@@ -268,7 +236,7 @@ public class CloudSim {
 	 * @post $result >= -1
 	 */
 	public static int getCloudInfoServiceEntityId() {
-		return cisId;
+		return getContext().getCloudInfoServiceEntityId();
 	}
 
 	/**
@@ -281,60 +249,11 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static List<Integer> getCloudResourceList() {
-		if (cis == null) {
-			return null;
-		}
-
-		return cis.getList();
+		return getContext().getCloudResourceList();
 	}
 
 	// ======== SIMULATION METHODS ===============//
 
-	/** The entities. */
-	private static List<SimEntity> entities;
-
-	/** The future event queue. */
-	protected static EventQueue future;
-
-
-	/**
-         * The current simulation clock.
-         */
-	private static double clock;
-
-	/** Flag for checking if the simulation is running. */
-	private static boolean running;
-
-	/** The entities by name. */
-	private static Map<String, SimEntity> entitiesByName;
-
-	// The predicates used in entity wait methods
-	/** The wait predicates. */
-	private static Map<Integer, Predicate> waitPredicates;
-
-	/** The paused. */
-	private static boolean paused = false;
-
-	/** The pause at. */
-	private static long pauseAt = -1;
-
-	/** The abrupt terminate. */
-	private static boolean abruptTerminate = false;
-
-	/**
-	 * Initialise the simulation for stand alone simulations. This function should be called at the
-	 * start of the simulation.
-	 */
-	protected static void initialize() {
-		Log.println("Initialising...");
-		entities = new ArrayList<>();
-		entitiesByName = new LinkedHashMap<>();
-		future = new EventQueue();
-		waitPredicates = new HashMap<>();
-		clock = 0;
-		running = false;
-	}
-
 	// The two standard predicates
 
 	/** A standard predicate that matches any event. */
@@ -351,7 +270,7 @@ public class CloudSim {
 	 * @return the simulation time
 	 */
 	public static double clock() {
-		return clock;
+		return getContext().clock();
 	}
 
 	/**
@@ -360,7 +279,7 @@ public class CloudSim {
 	 * @return The number of entities
 	 */
 	public static int getNumEntities() {
-		return entities.size();
+		return getContext().getNumEntities();
 	}
 
 	/**
@@ -370,7 +289,7 @@ public class CloudSim {
 	 * @return The entity, or if it could not be found
 	 */
 	public static SimEntity getEntity(int id) {
-		return entities.get(id);
+		return getContext().getEntity(id);
 	}
 
 	/**
@@ -380,7 +299,7 @@ public class CloudSim {
 	 * @return The entity
 	 */
 	public static SimEntity getEntity(String name) {
-		return entitiesByName.get(name);
+		return getContext().getEntity(name);
 	}
 
 	/**
@@ -390,12 +309,7 @@ public class CloudSim {
 	 * @return The entity's unique id number
 	 */
 	public static int getEntityId(String name) {
-		SimEntity obj = entitiesByName.get(name);
-		if (obj == null) {
-			return NOT_FOUND;
-		} else {
-			return obj.getId();
-		}
+		return getContext().getEntityId(name);
 	}
 
 	/**
@@ -407,11 +321,7 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static String getEntityName(int entityID) {
-		try {
-			return getEntity(entityID).getName();
-		} catch (Exception e) {
-			return null;
-		}
+		return getContext().getEntityName(entityID);
 	}
 
 	/**
@@ -435,10 +345,7 @@ public class CloudSim {
 	 * @return the entity iterator
 	 */
 	public static List<SimEntity> getEntityList() {
-		// create a new list to prevent the user from changing
-		// the list of entities used by Simulation
-		List<SimEntity> list = new LinkedList<>(entities);
-		return list;
+		return getContext().getEntityList();
 	}
 
 	// Public update methods
@@ -450,69 +357,34 @@ public class CloudSim {
 	 * @param e The new entity
 	 */
 	public static void addEntity(SimEntity e) {
-		SimEvent evt;
-		if (running) {
-			// Post an event to make this entity
-			evt = new SimEvent(SimEvent.CREATE, clock, 1, 0, CloudActionTags.BLANK, e);
-			future.addEvent(evt);
-		}
-		if (e.getId() == -1) { // Only add once!
-			int id = entities.size();
-			e.setId(id);
-			entities.add(e);
-			entitiesByName.put(e.getName(), e);
-		}
+		getContext().addEntity(e);
 	}
 
 	/**
-	 * Internal method used to add a new entity to the simulation when the simulation is running. It
-	 * should <b>not</b> be called from user simulations.
-	 *
-	 * @param e The new entity
+	 * Internal method used to stop the simulation. This method should <b>not</b> be used directly.
 	 */
-	protected static void addEntityDynamically(SimEntity e) {
-		if (e == null) {
-			throw new IllegalArgumentException("Adding null entity.");
-		} else {
-			printMessage("Adding: " + e.getName());
-		}
-		e.startEntity();
+	public static void runStop() {
+		getContext().runStop();
 	}
 
 	/**
-	 * Internal method used to run one tick of the simulation. This method should <b>not</b> be
-	 * called in simulations.
+	 * Gets the number of events dispatched by the current simulation.
 	 *
-	 * @return true if there are events to be processed, false if event queue is empty
+	 * @return the number of processed events
+	 * @see SimulationContext#getProcessedEvents()
 	 */
-	private static boolean runClockTick() {
-		SimEntity ent;
-		for (int i = 0; i < entities.size(); i++) {
-			ent = entities.get(i);
-			if (ent.getState() == SimEntity.EntityStatus.RUNNABLE) {
-				ent.run();
-			}
-		}
-
-		if (future.isEmpty()) {
-			running = false;
-			printMessage(CloudSim.clock()+": Simulation: No more future events");
-			return false;
-		}
-
-		double clk = future.peek().eventTime();
-		while (!future.isEmpty() && future.peek().eventTime() == clk) {
-			dispatchEvent(future.poll());
-		}
-
-		return true;
+	public static long getProcessedEvents() {
+		return getContext().getProcessedEvents();
 	}
 
 	/**
-	 * Internal method used to stop the simulation. This method should <b>not</b> be used directly.
+	 * Gets the number of events dispatched per second of wall-clock time by the current simulation.
+	 *
+	 * @return the events per second
+	 * @see SimulationContext#getEventsPerSecond()
 	 */
-	public static void runStop() {
-		printMessage("Simulation completed.");
+	public static double getEventsPerSecond() {
+		return getContext().getEventsPerSecond();
 	}
 
 	/**
@@ -522,9 +394,7 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void pause(int srcId, double delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, srcId);
-		future.addEvent(e);
-		entities.get(srcId).setState(SimEntity.EntityStatus.HOLDING);
+		getContext().pause(srcId, delay);
 	}
 
 	/**
@@ -537,15 +407,7 @@ public class CloudSim {
 	 * @param data the data
 	 */
 	public static void send(int srcId, int dstId, double delay, CloudSimTags tag, Object data) {
-		if (delay < 0) {
-			throw new IllegalArgumentException("Send delay can't be negative.");
-		}
-		if(delay >= Double.MAX_VALUE) {
-			throw new RuntimeException("Send delay can't be infinite.");
-		}
-
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, srcId, dstId, tag, data);
-		future.addEvent(e);
+		getContext().send(srcId, dstId, delay, tag, data);
 	}
 
 	/**
@@ -558,12 +420,7 @@ public class CloudSim {
 	 * @param data the data
 	 */
 	public static void sendFirst(int srcId, int dstId, double delay, CloudSimTags tag, Object data) {
-		if (delay < 0) {
-			throw new IllegalArgumentException("Send delay can't be negative.");
-		}
-
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, srcId, dstId, tag, data);
-		future.addEventFirst(e);
+		getContext().sendFirst(srcId, dstId, delay, tag, data);
 	}
 
 	/**
@@ -575,11 +432,7 @@ public class CloudSim {
 	 * @param p the p
 	 */
 	public static void wait(int srcId, Predicate p) {
-		entities.get(srcId).setState(SimEntity.EntityStatus.WAITING);
-		if (p != SIM_ANY) {
-			// If a predicate has been used store it in order to check it
-			waitPredicates.put(srcId, p);
-		}
+		getContext().wait(srcId, p);
 	}
 
 	/**
@@ -590,16 +443,7 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent cancel(int srcId, Predicate p) {
-		SimEvent ev;
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSourceId() == srcId && p.match(ev)) {
-				iter.remove();
-				return ev;
-			}
-		}
-		return null;
+		return getContext().cancel(srcId, p);
 	}
 
 	/**
@@ -611,59 +455,7 @@ public class CloudSim {
 	 * @return true, if successful
 	 */
 	public static boolean cancelAll(int srcId, Predicate p) {
-		SimEvent ev;
-		int previousSize = future.size();
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSourceId() == srcId && p.match(ev)) {
-				iter.remove();
-			}
-		}
-		return previousSize < future.size();
-	}
-
-	//
-	// Private internal methods
-	//
-
-	/**
-	 * Dispatch event to destination entity
-	 *
-	 * @param e the e
-	 */
-	private static void dispatchEvent(SimEvent e) {
-		int dstId = e.getDestinationId();
-		int srcId = e.getSourceId();
-		SimEntity destEnt = entities.get(dstId);
-
-		// Update the system's clock
-		if (e.eventTime() < clock) {
-			throw new IllegalArgumentException("Past event detected.");
-		}
-		clock = e.eventTime();
-
-		// Ok now process it
-		switch (e.getType()) {
-			case SimEvent.ENULL -> throw new IllegalArgumentException("Event has a null type.");
-			case SimEvent.CREATE -> {
-				addEntityDynamically((SimEntity) e.getData());
-			}
-			case SimEvent.SEND -> {
-                if (destEnt.getState() == SimEntity.EntityStatus.WAITING) { // NOTE: this branch is never used
-                    Predicate p = waitPredicates.get(dstId);
-
-                    if ((p == null) || (p.match(e))) {
-                        destEnt.setState(SimEntity.EntityStatus.RUNNABLE);
-                        waitPredicates.remove(dstId);
-                    }
-                }
-				destEnt.getIncomingEvents().add(e);
-            }
-			case SimEvent.HOLD_DONE -> entities.get(srcId).setState(SimEntity.EntityStatus.RUNNABLE);
-			default -> {
-			}
-		}
+		return getContext().cancelAll(srcId, p);
 	}
 
 	/**
@@ -671,13 +463,7 @@ public class CloudSim {
 	 * simulations.
 	 */
 	public static void runStart() {
-		running = true;
-		// Start all the entities
-		for (SimEntity ent : entities) {
-			ent.startEntity();
-		}
-
-		printMessage("Entities started.");
+		getContext().runStart();
 	}
 
 	/**
@@ -687,7 +473,7 @@ public class CloudSim {
 	 * @return if the simulation is still running, otherwise
 	 */
 	public static boolean running() {
-		return running;
+		return getContext().running();
 	}
 
 	/**
@@ -696,8 +482,7 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation() {
-		paused = true;
-		return paused;
+		return getContext().pauseSimulation();
 	}
 
 	/**
@@ -707,12 +492,7 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation(long time) {
-		if (time <= clock) {
-			return false;
-		} else {
-			pauseAt = time;
-		}
-		return true;
+		return getContext().pauseSimulation(time);
 	}
 
 	/**
@@ -721,13 +501,7 @@ public class CloudSim {
 	 * @return if the simulation has been restarted or or otherwise.
 	 */
 	public static boolean resumeSimulation() {
-		paused = false;
-
-		if (pauseAt <= clock) {
-			pauseAt = -1;
-		}
-
-		return !paused;
+		return getContext().resumeSimulation();
 	}
 
 	/**
@@ -737,91 +511,14 @@ public class CloudSim {
 	 * @return the last clock value
 	 */
 	public static double run() {
-		if (!running) {
-			runStart();
-		}
-		while (true) {
-			if (!runClockTick() || abruptTerminate) {
-				break;
-			}
-
-			// this block allows termination of simulation at a specific time
-			if (terminateAt > 0.0 && clock >= terminateAt) {
-				terminateSimulation();
-				clock = terminateAt;
-				break;
-			}
-
-			if (pauseAt != -1
-					&& ((!future.isEmpty() && clock <= pauseAt && pauseAt <= future.peek()
-							.eventTime()) || future.isEmpty() && pauseAt <= clock)) {
-				pauseSimulation();
-				clock = pauseAt;
-			}
-
-			while (paused) {
-				try {
-					Thread.sleep(100);
-				} catch (InterruptedException e) {
-					e.printStackTrace();
-				}
-			}
-		}
-
-		double clock = clock();
-
-		finishSimulation();
-		runStop();
-
-		return clock;
-	}
-
-	/**
-	 * Internal method that allows the entities to terminate. This method should <b>not</b> be used
-	 * in user simulations.
-	 */
-	private static void finishSimulation() {
-		// Allow all entities to exit their body method
-		if (!abruptTerminate) {
-			for (SimEntity ent : entities) {
-				if (ent.getState() != SimEntity.EntityStatus.FINISHED) {
-					ent.run();
-				}
-			}
-		}
-
-		for (SimEntity ent : entities) {
-			ent.shutdownEntity();
-		}
-
-		// reset all static variables
-		// Private data members
-		entities = null;
-		entitiesByName = null;
-		future = null;
-		clock = 0L;
-		running = false;
-
-		waitPredicates = null;
-		paused = false;
-		pauseAt = -1;
-		abruptTerminate = false;
+		return getContext().run();
 	}
 
 	/**
 	 * Abruptally terminate.
 	 */
 	public static void abruptallyTerminate() {
-		abruptTerminate = true;
-	}
-
-	/**
-	 * Prints a message about the progress of the simulation.
-	 *
-	 * @param message the message
-	 */
-	private static void printMessage(String message) {
-		Log.println(message);
+		getContext().abruptallyTerminate();
 	}
 
 	/**
@@ -830,7 +527,7 @@ public class CloudSim {
 	 * @return true, if is paused
 	 */
 	public static boolean isPaused() {
-		return paused;
+		return getContext().isPaused();
 	}
 
 }
@@ -68,7 +68,7 @@ public class CloudSimShutdown extends SimEntity {
 	public void processEvent(SimEvent ev) {
 		numUser--;
 		if (numUser == 0 || ev.getTag() == CloudActionTags.ABRUPT_END_OF_SIMULATION) {
-			CloudSim.abruptallyTerminate();
+			getContext().abruptallyTerminate();
 		}
 	}
 
@@ -9,18 +9,21 @@
 package org.cloudbus.cloudsim.core;
 
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
 
 import java.util.Iterator;
 import java.util.PriorityQueue;
 
 /**
- * This class implements the event queue used by {@link CloudSim}.
+ * This class implements the event queue used by {@link CloudSim}. It is the default
+ * {@link FutureEventList}: a binary heap with O(log n) insertion and removal, whose cancellation
+ * scans the whole queue.
  *
  * @author Remo Andreoli
  * @since CloudSim Toolkit 7.0
  *
  */
-public class EventQueue extends PriorityQueue<SimEvent> {
+public class EventQueue extends PriorityQueue<SimEvent> implements FutureEventList {
 	/** A incremental number used for event attribute */
 	private long serial = 0;
 
@@ -30,6 +33,7 @@ public class EventQueue extends PriorityQueue<SimEvent> {
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
+	@Override
 	public void addEvent(SimEvent newEvent) {
 		newEvent.setSerial(serial++);
 		this.add(newEvent);
@@ -40,6 +44,7 @@ public class EventQueue extends PriorityQueue<SimEvent> {
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
+	@Override
 	public void addEventFirst(SimEvent newEvent) {
 		newEvent.setSerial(0);
 		this.add(newEvent);
@@ -53,6 +58,35 @@ public class EventQueue extends PriorityQueue<SimEvent> {
 		return super.poll();
 	}
 
+	@Override
+	public SimEvent cancel(int srcId, Predicate p) {
+		SimEvent ev;
+		Iterator<SimEvent> iter = iterator();
+		while (iter.hasNext()) {
+			ev = iter.next();
+			if (ev.getSourceId() == srcId && p.match(ev)) {
+				iter.remove();
+				return ev;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public boolean cancelAll(int srcId, Predicate p) {
+		SimEvent ev;
+		int previousSize = size();
+		Iterator<SimEvent> iter = iterator();
+		while (iter.hasNext()) {
+			ev = iter.next();
+			if (ev.getSourceId() == srcId && p.match(ev)) {
+				iter.remove();
+			}
+		}
+		return previousSize > size();
+	}
+
+	@Override
 	public void print() {
 		Iterator<SimEvent> iter = iterator();
 		int i = 0;
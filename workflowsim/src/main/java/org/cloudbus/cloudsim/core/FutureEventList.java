@@ -0,0 +1,76 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * The future event list of a {@link SimulationContext}. Events are polled in increasing order of
+ * time and, for equal times, in the order they were added (see {@link SimEvent#compareTo(SimEvent)}).
+ *
+ * @see EventQueue
+ * @see CalendarEventQueue
+ * @since CloudSim Toolkit 7.0
+ */
+public interface FutureEventList {
+
+	/**
+	 * Adds a new event to the list, preserving the temporal order of the events.
+	 *
+	 * @param newEvent The event to be put in the list.
+	 */
+	void addEvent(SimEvent newEvent);
+
+	/**
+	 * Adds a new event ahead of the events with the same time.
+	 *
+	 * @param newEvent The event to be put in the list.
+	 */
+	void addEventFirst(SimEvent newEvent);
+
+	/**
+	 * Gets, without removing it, the next event to be processed.
+	 *
+	 * @return the next event, or <tt>null</tt> if the list is empty
+	 */
+	SimEvent peek();
+
+	/**
+	 * Removes and returns the next event to be processed.
+	 *
+	 * @return the next event, or <tt>null</tt> if the list is empty or the simulation is not running
+	 */
+	SimEvent poll();
+
+	/**
+	 * Removes one event sent by the given entity that matches the predicate.
+	 *
+	 * @param srcId the entity source id
+	 * @param p the predicate to match
+	 * @return the removed event, or <tt>null</tt> if none matches
+	 */
+	SimEvent cancel(int srcId, Predicate p);
+
+	/**
+	 * Removes all the events sent by the given entity that match the predicate.
+	 *
+	 * @param srcId the entity source id
+	 * @param p the predicate to match
+	 * @return true, if at least one event was removed
+	 */
+	boolean cancelAll(int srcId, Predicate p);
+
+	int size();
+
+	boolean isEmpty();
+
+	void clear();
+
+	void print();
+}
@@ -44,6 +44,8 @@ public abstract class SimEntity implements Cloneable {
 	private int id;
 	private EntityStatus state;
 	protected EventQueue incomingEvents;
+	/** The simulation this entity belongs to. */
+	private final SimulationContext context;
 
 	/**
 	 * Creates a new entity.
@@ -59,7 +61,8 @@ public abstract class SimEntity implements Cloneable {
 		state = EntityStatus.RUNNABLE;
 		incomingEvents = new EventQueue();
 
-		CloudSim.addEntity(this);
+		context = CloudSim.getContext();
+		context.addEntity(this);
 	}
 
 	/**
@@ -84,6 +87,16 @@ public abstract class SimEntity implements Cloneable {
 		return incomingEvents;
 	}
 
+	/**
+	 * Gets the simulation context this entity was created in. All the events sent by this
+	 * entity go through the future event queue of this context.
+	 *
+	 * @return the simulation context
+	 */
+	public SimulationContext getContext() {
+		return context;
+	}
+
 	/** Handle incoming event functions */
 	/**
 	 * Checks if events for a specific entity are present in the deferred event queue.
@@ -108,7 +121,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @return the sim event
 	 */
 	public SimEvent selectEvent(Predicate p) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return null;
 		}
 
@@ -151,10 +164,27 @@ public abstract class SimEntity implements Cloneable {
 	 * @param data The data to be sent with the event.
 	 */
 	public void schedule(int dstId, double delay, CloudSimTags tag, Object data) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return;
 		}
-		CloudSim.send(id, dstId, delay, tag, data);
+		context.send(id, dstId, delay, tag, data);
+	}
+
+	/**
+	 * Sends an event to another entity by id number, with primitive values instead of data.
+	 *
+	 * @param dstId The unique id number of the destination entity
+	 * @param delay How long from the current simulation time the event should be sent
+	 * @param tag event type.
+	 * @param value0 The first value, see {@link SimEvent#getLongValue(int)}.
+	 * @param value1 The second value.
+	 * @param value2 The third value.
+	 */
+	public void scheduleValues(int dstId, double delay, CloudSimTags tag, long value0, long value1, long value2) {
+		if (!context.running()) {
+			return;
+		}
+		context.sendValues(id, dstId, delay, tag, value0, value1, value2);
 	}
 
 	/**
@@ -177,7 +207,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @param data The data to be sent with the event.
 	 */
 	public void schedule(String dstName, double delay, CloudSimTags tag, Object data) {
-		schedule(CloudSim.getEntityId(dstName), delay, tag, data);
+		schedule(context.getEntityId(dstName), delay, tag, data);
 	}
 
 	/**
@@ -222,7 +252,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @param data The data to be sent with the event.
 	 */
 	public void scheduleNow(String dstName, CloudSimTags tag, Object data) {
-		schedule(CloudSim.getEntityId(dstName), 0, tag, data);
+		schedule(context.getEntityId(dstName), 0, tag, data);
 	}
 
 	/**
@@ -245,10 +275,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param data The data to be sent with the event.
 	 */
 	public void scheduleFirst(int dstId, double delay, CloudSimTags tag, Object data) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return;
 		}
-		CloudSim.sendFirst(id, dstId, delay, tag, data);
+		context.sendFirst(id, dstId, delay, tag, data);
 	}
 
 	/**
@@ -271,7 +301,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @param data The data to be sent with the event.
 	 */
 	public void scheduleFirst(String dstName, double delay, CloudSimTags tag, Object data) {
-		scheduleFirst(CloudSim.getEntityId(dstName), delay, tag, data);
+		scheduleFirst(context.getEntityId(dstName), delay, tag, data);
 	}
 
 	/**
@@ -318,7 +348,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @param data The data to be sent with the event.
 	 */
 	public void scheduleFirstNow(String dstName, CloudSimTags tag, Object data) {
-		scheduleFirst(CloudSim.getEntityId(dstName), 0, tag, data);
+		scheduleFirst(context.getEntityId(dstName), 0, tag, data);
 	}
 
 	/**
@@ -341,10 +371,10 @@ public abstract class SimEntity implements Cloneable {
 		if (delay < 0) {
 			throw new IllegalArgumentException("Negative delay supplied.");
 		}
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return;
 		}
-		CloudSim.pause(id, delay);
+		context.pause(id, delay);
 	}
 
 	/**
@@ -375,11 +405,11 @@ public abstract class SimEntity implements Cloneable {
 	 * @return The number of events cancelled (0 or 1)
 	 */
 	public SimEvent cancelEvent(Predicate p) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return null;
 		}
 
-		return CloudSim.cancel(id, p);
+		return context.cancel(id, p);
 	}
 
 	/**
@@ -390,7 +420,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @return the simulation event
 	 */
 	public SimEvent getNextEvent(Predicate p) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return null;
 		}
 		return selectEvent(p);
@@ -403,11 +433,11 @@ public abstract class SimEntity implements Cloneable {
 	 * @param p The predicate to match
 	 */
 	public void waitForEvent(Predicate p) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return;
 		}
 
-		CloudSim.wait(id, p);
+		context.wait(id, p);
 		state = EntityStatus.WAITING;
 	}
 
@@ -416,7 +446,7 @@ public abstract class SimEntity implements Cloneable {
 	 * It should be responsible for starting the entity up.
 	 */
 	public void startEntity() {
-		Log.printlnConcat(CloudSim.clock(), ": ", getName(), " is starting...");
+		Log.printlnConcat(context.clock(), ": ", getName(), " is starting...");
 	}
 
 	/**
@@ -434,7 +464,7 @@ public abstract class SimEntity implements Cloneable {
 	 * to save data in log files this is the method in which the corresponding code would be placed.
 	 */
 	public void shutdownEntity() {
-		Log.printlnConcat(CloudSim.clock(), ": ", getName(), " is shutting down...");
+		Log.printlnConcat(context.clock(), ": ", getName(), " is shutting down...");
 		incomingEvents = null;
 		state = EntityStatus.FINISHED;
 	}
@@ -451,6 +481,7 @@ public abstract class SimEntity implements Cloneable {
 
 		while (ev != null) {
 			processEvent(ev);
+			context.releaseEvent(ev);
 			if (state != EntityStatus.RUNNABLE) {
 				break;
 			}
@@ -458,6 +489,19 @@ public abstract class SimEntity implements Cloneable {
 		}
 	}
 
+	/**
+	 * Checks whether the entity may run concurrently with other parallel safe entities when the
+	 * simulation has a parallelism above 1 (see {@link SimulationContext#setParallelism(int)}). A
+	 * parallel safe entity only changes its own state while processing events, and does any change
+	 * to an object shared with other entities through {@link SimulationContext#defer(Runnable)};
+	 * the events it sends are deferred by the context.
+	 *
+	 * @return true if the entity is parallel safe, false by default
+	 */
+	public boolean isParallelSafe() {
+		return false;
+	}
+
 	/**
 	 * Gets a clone of the entity. This is used when independent replications have been specified as
 	 * an output analysis method. Clones or backups of the entities are made in the beginning of the
@@ -502,6 +546,9 @@ public abstract class SimEntity implements Cloneable {
 	 */
 	protected void setState(EntityStatus state) {
 		this.state = state;
+		if (state == EntityStatus.RUNNABLE && id >= 0) {
+			context.markRunnable(id);
+		}
 	}
 
 	/**
@@ -587,7 +634,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @post $none
 	 */
 	protected void send(String dstName, double delay, CloudSimTags tag, Object data) {
-		send(CloudSim.getEntityId(dstName), delay, tag, data);
+		send(context.getEntityId(dstName), delay, tag, data);
 	}
 
 	/**
@@ -646,7 +693,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @post $none
 	 */
 	protected void sendNow(String dstId, CloudSimTags tag, Object data) {
-		send(CloudSim.getEntityId(dstId), 0, tag, data);
+		send(context.getEntityId(dstId), 0, tag, data);
 	}
 
 	/**
@@ -662,6 +709,49 @@ public abstract class SimEntity implements Cloneable {
 		send(dstName, 0, tag, null);
 	}
 
+	/**
+	 * Sends an event/message carrying primitive values instead of data to another entity by
+	 * <tt>delaying</tt> the simulation time from the current time, e.g. the (datacenter id, entity
+	 * id, result) triple of an acknowledgement, without allocating it.
+	 *
+	 * @param dstId the id number of the destination entity
+	 * @param delay how long from the current simulation time the event should be sent. If delay is
+	 *            a negative number, then it will be changed to 0
+	 * @param tag an user-defined number representing the type of an event/message
+	 * @param value0 the first value, see {@link SimEvent#getIntValue(int)}
+	 * @param value1 the second value
+	 * @param value2 the third value
+	 */
+	protected void sendValues(int dstId, double delay, CloudSimTags tag, long value0, long value1, long value2) {
+		if (dstId < 0) {
+			return;
+		}
+		if (delay < 0) {
+			delay = 0;
+		}
+		if (Double.isInfinite(delay)) {
+			throw new IllegalArgumentException("The specified delay is infinite value");
+		}
+		if (dstId != id) {// only delay messages between different entities
+			delay += getNetworkDelay(id, dstId);
+		}
+		scheduleValues(dstId, delay, tag, value0, value1, value2);
+	}
+
+	/**
+	 * Sends an event/message carrying primitive values instead of data to another entity, see
+	 * {@link #sendValues(int, double, CloudSimTags, long, long, long)}.
+	 *
+	 * @param dstId the id number of the destination entity
+	 * @param tag an user-defined number representing the type of an event/message
+	 * @param value0 the first value
+	 * @param value1 the second value
+	 * @param value2 the third value
+	 */
+	protected void sendValuesNow(int dstId, CloudSimTags tag, long value0, long value1, long value2) {
+		sendValues(dstId, 0, tag, value0, value1, value2);
+	}
+
 	/**
 	 * Gets the network delay associated to the sent of a message from a given source to a given
 	 * destination.
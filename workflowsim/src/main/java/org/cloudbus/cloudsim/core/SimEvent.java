@@ -10,17 +10,29 @@ package org.cloudbus.cloudsim.core;
 
 /**
  * This class represents a simulation event which is passed between the entities in the simulation.
+ * <p>
+ * Events are recycled by the {@link SimEventPool} of the simulation once their destination has
+ * processed them, so an entity must not keep a reference to an event after
+ * {@link SimEntity#processEvent(SimEvent)} returns, only to its data. Small payloads, such as the
+ * (datacenter id, entity id, result) triple of an acknowledgement or the id of a wake-up, can be
+ * carried as primitive values (see {@link #getIntValue(int)}) instead of a boxed or array object.
  *
  * @author Costas Simatos
  * @see SimEntity
  */
 public class SimEvent implements Cloneable, Comparable<SimEvent> {
 
+	/** The number of primitive values an event can carry. */
+	public static final int MAX_VALUES = 3;
+
 	/** Internal event type. **/
-	private final int etype;
+	private int etype;
+
+	/** The time that this event was scheduled, at which it should occur, in ticks of the simulation clock. **/
+	private long ticks;
 
-	/** The time that this event was scheduled, at which it should occur. **/
-	private final double time;
+	/** The time that this event was scheduled, at which it should occur, in seconds. **/
+	private double time;
 
 	/** Time that the event was removed from the queue to start service. **/
 	private double endWaitingTime;
@@ -32,7 +44,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	private int entDst;
 
 	/** The user defined type of the event. **/
-	private final CloudSimTags tag;
+	private CloudSimTags tag;
 
 	/**
          * Any data the event is carrying.
@@ -40,12 +52,28 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
          * But this modification would incur several changes in the simulator core
          * that has to be assessed first.
          **/
-	private final Object data;
+	private Object data;
+
+	/**
+	 * The primitive values the event is carrying, if {@link #hasValues()}. They are fields rather
+	 * than an array, so an event is a single allocation.
+	 */
+	private long value0;
+
+	private long value1;
+
+	private long value2;
+
+	/** Whether the event carries primitive values. */
+	private boolean valued;
+
+	/** Whether the event has been released to its pool and must not be used any more. */
+	private boolean released;
 
         /**
          * An attribute to help CloudSim to identify the order of received events
          * when multiple events are generated at the same time.
-         * If two events have the same {@link #time}, to know
+         * If two events have the same {@link #ticks}, to know
          * what event is greater than other (i.e. that happens after other),
          * the {@link #compareTo(SimEvent)}
          * makes use of this field.
@@ -63,18 +91,57 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	public static final int CREATE = 3;
 
 	// ------------------- PACKAGE LEVEL METHODS --------------------------
-	SimEvent(int type, double time, int src, int dest, CloudSimTags tag, Object edata) {
+	SimEvent(int type, long ticks, double time, int src, int dest, CloudSimTags tag, Object edata) {
+		reset(type, ticks, time, src, dest, tag, edata);
+	}
+
+	/**
+	 * Sets all the fields of the event, when it is created or taken again from the pool.
+	 */
+	void reset(int type, long ticks, double time, int src, int dest, CloudSimTags tag, Object edata) {
 		etype = type;
+		this.ticks = ticks;
 		this.time = time;
 		entSrc = src;
 		entDst = dest;
 		this.tag = tag;
 		data = edata;
 		endWaitingTime = -1.0;
+		serial = -1;
+		valued = false;
+		released = false;
 	}
 
-	SimEvent(int type, double time, int src) {
-		this(type, time, src, src, CloudActionTags.BLANK, null);
+	/**
+	 * Sets the primitive values of the event, which then carries no data object.
+	 */
+	void setValues(long value0, long value1, long value2) {
+		this.value0 = value0;
+		this.value1 = value1;
+		this.value2 = value2;
+		valued = true;
+	}
+
+	/**
+	 * Marks the event as released to its pool.
+	 *
+	 * @throws IllegalStateException if the event was already released
+	 */
+	void release() {
+		checkNotReleased();
+		released = true;
+		data = null;
+	}
+
+	/**
+	 * Fails if the event has been released, which is detected as long as the pool does not reuse
+	 * the event, i.e. in the safe mode of the pool.
+	 */
+	private void checkNotReleased() {
+		if (released) {
+			throw new IllegalStateException("Event " + tag + " from #" + entSrc + " to #" + entDst + " at " + time
+					+ " used after it was released");
+		}
 	}
 
 	protected void setSerial(long serial) {
@@ -104,6 +171,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return
 	 */
 	public int getType() {
+		checkNotReleased();
 		return etype;
 	}
 
@@ -112,9 +180,9 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	public int compareTo(SimEvent event) {
 		if (event == null) {
 			return 1;
-		} else if (time < event.time) {
+		} else if (ticks < event.ticks) {
 			return -1;
-		} else if (time > event.time) {
+		} else if (ticks > event.ticks) {
 			return 1;
 		} else if (serial < event.serial) {
 			return -1;
@@ -130,7 +198,10 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 *
 	 * @return the id number
 	 */
-	public int getDestinationId() { return entDst; }
+	public int getDestinationId() {
+		checkNotReleased();
+		return entDst;
+	}
 	@Deprecated
 	public int getDestination() { return entDst; }
 
@@ -140,6 +211,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return the id number
 	 */
 	public int getSourceId() {
+		checkNotReleased();
 		return entSrc;
 	}
 	@Deprecated
@@ -152,9 +224,21 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return The simulation time
 	 */
 	public double eventTime() {
+		checkNotReleased();
 		return time;
 	}
 
+	/**
+	 * Get the simulation time that this event was scheduled, in ticks of the simulation clock (see
+	 * {@link SimulationContext#setClockResolution(double)}).
+	 *
+	 * @return The simulation time in ticks
+	 */
+	public long eventTicks() {
+		checkNotReleased();
+		return ticks;
+	}
+
 	/**
 	 * Get the simulation time that this event was removed from the queue for service.
 	 *
@@ -170,6 +254,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return The tag
 	 */
 	public CloudSimTags type() {
+		checkNotReleased();
 		return tag;
 	}
 
@@ -179,6 +264,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return the id number
 	 */
 	public int scheduledBy() {
+		checkNotReleased();
 		return entSrc;
 	}
 
@@ -188,6 +274,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return The tag
 	 */
 	public CloudSimTags getTag() {
+		checkNotReleased();
 		return tag;
 	}
 
@@ -197,11 +284,61 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return A reference to the data
 	 */
 	public Object getData() {
+		checkNotReleased();
 		return data;
 	}
 
+	/**
+	 * Checks whether the event carries primitive values instead of a data object.
+	 *
+	 * @return true if the event has values
+	 */
+	public boolean hasValues() {
+		checkNotReleased();
+		return valued;
+	}
+
+	/**
+	 * Gets a primitive value of the event.
+	 *
+	 * @param index the index of the value, lower than {@link #MAX_VALUES}
+	 * @return the value
+	 */
+	public long getLongValue(int index) {
+		checkNotReleased();
+		if (!valued) {
+			throw new IllegalStateException("Event " + tag + " carries no values");
+		}
+		return switch (index) {
+			case 0 -> value0;
+			case 1 -> value1;
+			case 2 -> value2;
+			default -> throw new IndexOutOfBoundsException("Value " + index + " out of " + MAX_VALUES);
+		};
+	}
+
+	/**
+	 * Gets a primitive int value of the event. An <tt>int[]</tt> data object is read the same way,
+	 * so the receivers of acknowledgements accept both forms.
+	 *
+	 * @param index the index of the value
+	 * @return the value
+	 */
+	public int getIntValue(int index) {
+		checkNotReleased();
+		if (data instanceof int[] array) {
+			return array[index];
+		}
+		return (int) getLongValue(index);
+	}
+
 	@Override
 	public Object clone() {
-		return new SimEvent(etype, time, entSrc, entDst, tag, data);
+		checkNotReleased();
+		SimEvent copy = new SimEvent(etype, ticks, time, entSrc, entDst, tag, data);
+		if (valued) {
+			copy.setValues(value0, value1, value2);
+		}
+		return copy;
 	}
 }
@@ -0,0 +1,93 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayDeque;
+
+/**
+ * SimEventPool recycles the events of a simulation: an event is released once its destination
+ * has processed it (or once it has been dispatched, for the internal events) and is reused by the
+ * next send, so a long simulation does not allocate an event per message. The pool belongs to a
+ * {@link SimulationContext} and is only used by the thread running it.
+ * <p>
+ * In safe mode the released events are never reused, so any later use of a released event fails
+ * with an {@link IllegalStateException} instead of silently reading the fields of another event.
+ *
+ * @see SimEvent
+ * @since CloudSim Toolkit 7.0
+ */
+class SimEventPool {
+
+	/** The maximal number of free events kept, the others are left to the garbage collector. */
+	private static final int MAX_FREE_EVENTS = 1 << 16;
+
+	/** The released events, ready to be reused. */
+	private final ArrayDeque<SimEvent> freeEvents = new ArrayDeque<>();
+
+	/** Whether released events are kept out of the pool to detect their use after release. */
+	private boolean safeMode;
+
+	/** The number of events taken from the pool instead of created. */
+	private long reusedEvents;
+
+	/**
+	 * Gets an event, reused if one is free.
+	 *
+	 * @param type the internal event type
+	 * @param ticks the time of the event, in ticks
+	 * @param time the time of the event, in seconds
+	 * @param src the source entity id
+	 * @param dest the destination entity id
+	 * @param tag the tag
+	 * @param data the data
+	 * @return the event
+	 */
+	SimEvent obtain(int type, long ticks, double time, int src, int dest, CloudSimTags tag, Object data) {
+		SimEvent event = freeEvents.pollLast();
+		if (event == null) {
+			return new SimEvent(type, ticks, time, src, dest, tag, data);
+		}
+		event.reset(type, ticks, time, src, dest, tag, data);
+		reusedEvents++;
+		return event;
+	}
+
+	/**
+	 * Releases an event that is not referenced by the simulation any more.
+	 *
+	 * @param event the event
+	 * @throws IllegalStateException if the event was already released
+	 */
+	void release(SimEvent event) {
+		event.release();
+		if (!safeMode && freeEvents.size() < MAX_FREE_EVENTS) {
+			freeEvents.addLast(event);
+		}
+	}
+
+	/**
+	 * Sets the safe mode, in which released events are not reused.
+	 *
+	 * @param safeMode true to detect the use of released events
+	 */
+	void setSafeMode(boolean safeMode) {
+		this.safeMode = safeMode;
+		if (safeMode) {
+			freeEvents.clear();
+		}
+	}
+
+	boolean isSafeMode() {
+		return safeMode;
+	}
+
+	long getReusedEvents() {
+		return reusedEvents;
+	}
+}
@@ -0,0 +1,1038 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.slf4j.MDC;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The state of a single simulation run: the clock, the future event queue, the entity list and
+ * the Cloud Information Service. Every {@link SimEntity} is bound to the context that was current
+ * on its thread when it was created and sends all its events through it, so independent
+ * simulations can run concurrently on different threads of the same JVM.
+ * <p>
+ * The static methods of {@link CloudSim} delegate to the context bound to the calling thread
+ * (see {@link CloudSim#getContext()}).
+ * <p>
+ * With a parallelism above 1 (see {@link #setParallelism(int)}) a run is a conservative parallel
+ * discrete-event simulation: the entities that are {@link SimEntity#isParallelSafe() parallel safe},
+ * e.g. the datacenters, are logical processes that run their events of the same timestamp on
+ * separate threads. The lookahead is the minimum delay of the messages between logical processes,
+ * and since brokers and datacenters exchange zero-delay messages, the safe window is one timestamp.
+ * The operations of a parallel entity on the shared state (sending events, changing entity states,
+ * see {@link #defer(Runnable)}) are buffered and replayed in entity id order once the window is
+ * done, which is the order the sequential engine runs the entities in, so the future event list
+ * and thus the results are bit-identical to a sequential run.
+ *
+ * @see CloudSim
+ * @since CloudSim Toolkit 7.0
+ */
+public class SimulationContext {
+
+	/** The Constant NOT_FOUND. */
+	private static final int NOT_FOUND = -1;
+
+	/** The default minimal time between events. */
+	static final double DEFAULT_MIN_TIME_BETWEEN_EVENTS = 0.01;
+
+	/** The default resolution of the simulation clock, in seconds per tick. */
+	static final double DEFAULT_CLOCK_RESOLUTION = 1e-9;
+
+	/** The id of CIS entity. */
+	private int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	private int shutdownId = -1;
+
+	/** The CIS object. */
+	private CloudInformationService cis = null;
+
+	/** The trace flag. */
+	private boolean traceFlag = false;
+
+	/** The calendar. */
+	private Calendar calendar = null;
+
+	/** The termination time. */
+	private double terminateAt = -1;
+
+	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
+	private double minTimeBetweenEvents = DEFAULT_MIN_TIME_BETWEEN_EVENTS;
+
+	/** The entities. */
+	private List<SimEntity> entities;
+
+	/** The future event queue. */
+	protected FutureEventList future;
+
+	/** The current simulation clock, in ticks. */
+	private long clockTicks;
+
+	/** The current simulation clock in seconds, i.e. {@link #clockTicks} / {@link #ticksPerSecond}. */
+	private double clock;
+
+	/** The number of ticks of the simulation clock per second. */
+	private long ticksPerSecond = Math.round(1 / DEFAULT_CLOCK_RESOLUTION);
+
+	/** Flag for checking if the simulation is running. */
+	private boolean running;
+
+	/** The ids of the entities that may have deferred events to process, kept up to date on every dispatch. */
+	private BitSet runnable;
+
+	/** The number of events dispatched by this simulation. */
+	private long processedEvents;
+
+	/** The wall-clock time spent in {@link #run()}, in nanoseconds. */
+	private long runtime;
+
+	/** The entities by name. */
+	private Map<String, SimEntity> entitiesByName;
+
+	/** The wait predicates. */
+	private Map<Integer, Predicate> waitPredicates;
+
+	/** The paused. */
+	private boolean paused = false;
+
+	/** The pause at. */
+	private long pauseAt = -1;
+
+	/** The number of threads running the parallel safe entities of a timestamp, 1 runs all entities on the calling thread. */
+	private int parallelism = 1;
+
+	/** The threads running the parallel safe entities, while the simulation runs with a parallelism above 1. */
+	private ExecutorService executor;
+
+	/** Whether parallel safe entities are running, so their shared operations must be deferred. */
+	private volatile boolean inParallelWindow;
+
+	/** The deferred operations of the parallel safe entity running on the current thread. */
+	private final ThreadLocal<List<Runnable>> deferredOperations = new ThreadLocal<>();
+
+	/** The recycled events, only used by the thread running the simulation. */
+	private final SimEventPool eventPool = new SimEventPool();
+
+	/** The abrupt terminate. */
+	private boolean abruptTerminate = false;
+
+	/**
+	 * Initialises the context and creates the {@link CloudSimShutdown} and
+	 * {@link CloudInformationService} entities. The context must be bound to the calling thread
+	 * (see {@link CloudSim#setContext(SimulationContext)}) because entities register themselves
+	 * with the current context when they are instantiated.
+	 *
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param minTimeBetweenEvents the minimal period between events
+	 * @param future the empty future event list to use
+	 * @throws Exception when the shutdown or CIS entity cannot be created
+	 */
+	void init(int numUser, Calendar cal, boolean traceFlag, double minTimeBetweenEvents, FutureEventList future) throws Exception {
+		initialize(future);
+		// NOTE: the order for the below 3 lines are important
+		this.traceFlag = traceFlag;
+
+		// Set the current Wall clock time as the starting time of
+		// simulation
+		this.calendar = cal == null ? Calendar.getInstance() : cal;
+
+		// creates a CloudSimShutdown object
+		CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
+		shutdownId = shutdown.getId();
+
+		// create a GIS object
+		cis = new CloudInformationService("CloudInformationService");
+		cisId = cis.getId();
+
+		this.minTimeBetweenEvents = minTimeBetweenEvents;
+	}
+
+	/**
+	 * Initialise the simulation for stand alone simulations.
+	 */
+	protected void initialize() {
+		initialize(new EventQueue());
+	}
+
+	/**
+	 * Initialise the simulation for stand alone simulations, using the given future event list.
+	 *
+	 * @param future the empty future event list to use
+	 */
+	protected void initialize(FutureEventList future) {
+		Log.println("Initialising...");
+		entities = new ArrayList<>();
+		entitiesByName = new LinkedHashMap<>();
+		this.future = future;
+		runnable = new BitSet();
+		processedEvents = 0;
+		runtime = 0;
+		waitPredicates = new HashMap<>();
+		setClockTicks(0);
+		running = false;
+	}
+
+	/**
+	 * Starts the execution of the simulation and resets the CIS related state once it is over.
+	 *
+	 * @return the last clock time
+	 */
+	public double startSimulation() {
+		double clock = run();
+
+		// reset the CIS related state
+		cisId = -1;
+		shutdownId = -1;
+		cis = null;
+		calendar = null;
+		traceFlag = false;
+
+		return clock;
+	}
+
+	/**
+	 * This method is called if one wants to terminate the simulation.
+	 */
+	public void terminateSimulation() {
+		running = false;
+		printMessage("Simulation: Reached termination time.");
+	}
+
+	/**
+	 * This method is called if one wants to terminate the simulation at a given time.
+	 *
+	 * @param time the time at which the simulation has to be terminated
+	 * @return true, if successful otherwise.
+	 */
+	public boolean terminateSimulation(double time) {
+		if (time <= clock) {
+			return false;
+		} else {
+			terminateAt = time;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the minimum time between events. Events within shorter periods after the last event are discarded.
+	 * @return the minimum time between events.
+	 */
+	public double getMinTimeBetweenEvents() {
+		return minTimeBetweenEvents;
+	}
+
+	/**
+	 * Gets a new copy of initial simulation Calendar.
+	 *
+	 * @return a new copy of Calendar object or if the context hasn't been initialized
+	 */
+	public Calendar getSimulationCalendar() {
+		// make a new copy
+		Calendar clone = calendar;
+		if (calendar != null) {
+			clone = (Calendar) calendar.clone();
+		}
+
+		return clone;
+	}
+
+	/**
+	 * Gets the entity ID of <tt>CloudInformationService</tt>.
+	 *
+	 * @return the Entity ID or if it is not found
+	 */
+	public int getCloudInfoServiceEntityId() {
+		return cisId;
+	}
+
+	/**
+	 * Gets the list of all CloudResource IDs registered to the CIS.
+	 *
+	 * @return A List containing CloudResource ID (as an Integer object) or if a CIS entity hasn't
+	 *         been created before
+	 */
+	public List<Integer> getCloudResourceList() {
+		if (cis == null) {
+			return null;
+		}
+
+		return cis.getList();
+	}
+
+	/**
+	 * Get the current simulation time.
+	 *
+	 * @return the simulation time
+	 */
+	public double clock() {
+		return clock;
+	}
+
+	/**
+	 * Get the current simulation time in ticks, see {@link #setClockResolution(double)}.
+	 *
+	 * @return the simulation time in ticks
+	 */
+	public long clockTicks() {
+		return clockTicks;
+	}
+
+	/**
+	 * Sets the resolution of the simulation clock. The simulation time is a whole number of ticks,
+	 * so the event times are rounded to the nearest tick once, when the events are sent, and the
+	 * events are ordered by exact integer comparisons. {@link #clock()} is the tick count divided by
+	 * the ticks per second, i.e. the time rounded to the resolution, e.g. to 4 decimals for 1e-4 s.
+	 * It must be set before the simulation starts.
+	 *
+	 * @param resolution the seconds per tick, 1/n seconds for a whole number n
+	 */
+	public void setClockResolution(double resolution) {
+		if (running) {
+			throw new IllegalStateException("The clock resolution cannot change while the simulation runs");
+		}
+		long ticks = Math.round(1 / resolution);
+		if (!(resolution > 0) || ticks < 1 || Math.abs(1.0 / ticks - resolution) > resolution * 1e-9) {
+			throw new IllegalArgumentException("The clock resolution should be 1/n seconds, but is:" + resolution);
+		}
+		ticksPerSecond = ticks;
+		setClockTicks(toTicks(clock));
+	}
+
+	/**
+	 * Gets the resolution of the simulation clock.
+	 *
+	 * @return the seconds per tick
+	 */
+	public double getClockResolution() {
+		return 1.0 / ticksPerSecond;
+	}
+
+	/**
+	 * Converts a time to the nearest tick.
+	 *
+	 * @param time the time in seconds
+	 * @return the time in ticks
+	 */
+	private long toTicks(double time) {
+		return Math.round(time * ticksPerSecond);
+	}
+
+	/**
+	 * Sets the current simulation time.
+	 *
+	 * @param ticks the time in ticks
+	 */
+	private void setClockTicks(long ticks) {
+		clockTicks = ticks;
+		// dividing by the exact whole ticksPerSecond gives the double nearest to the decimal time
+		clock = (double) ticks / ticksPerSecond;
+	}
+
+	/**
+	 * Get the current number of entities in the simulation.
+	 *
+	 * @return The number of entities
+	 */
+	public int getNumEntities() {
+		return entities.size();
+	}
+
+	/**
+	 * Get the entity with a given id.
+	 *
+	 * @param id the entity's unique id number
+	 * @return The entity, or if it could not be found
+	 */
+	public SimEntity getEntity(int id) {
+		return entities.get(id);
+	}
+
+	/**
+	 * Get the entity with a given name.
+	 *
+	 * @param name The entity's name
+	 * @return The entity
+	 */
+	public SimEntity getEntity(String name) {
+		return entitiesByName.get(name);
+	}
+
+	/**
+	 * Get the id of an entity with a given name.
+	 *
+	 * @param name The entity's name
+	 * @return The entity's unique id number
+	 */
+	public int getEntityId(String name) {
+		SimEntity obj = entitiesByName.get(name);
+		if (obj == null) {
+			return NOT_FOUND;
+		} else {
+			return obj.getId();
+		}
+	}
+
+	/**
+	 * Gets name of the entity given its entity ID.
+	 *
+	 * @param entityID the entity ID
+	 * @return the Entity name or if this object does not have one
+	 */
+	public String getEntityName(int entityID) {
+		try {
+			return getEntity(entityID).getName();
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns a list of entities created for the simulation.
+	 *
+	 * @return the entity iterator
+	 */
+	public List<SimEntity> getEntityList() {
+		// create a new list to prevent the user from changing
+		// the list of entities used by Simulation
+		return new LinkedList<>(entities);
+	}
+
+	/**
+	 * Add a new entity to the simulation.
+	 *
+	 * @param e The new entity
+	 */
+	public void addEntity(SimEntity e) {
+		SimEvent evt;
+		if (running) {
+			// Post an event to make this entity
+			evt = newEvent(SimEvent.CREATE, clockTicks, 1, 0, CloudActionTags.BLANK, e);
+			addEvent(evt, false);
+		}
+		if (e.getId() == -1) { // Only add once!
+			int id = entities.size();
+			e.setId(id);
+			entities.add(e);
+			entitiesByName.put(e.getName(), e);
+		}
+	}
+
+	/**
+	 * Internal method used to add a new entity to the simulation when the simulation is running.
+	 *
+	 * @param e The new entity
+	 */
+	protected void addEntityDynamically(SimEntity e) {
+		if (e == null) {
+			throw new IllegalArgumentException("Adding null entity.");
+		} else {
+			printMessage("Adding: " + e.getName());
+		}
+		e.startEntity();
+	}
+
+	/**
+	 * Internal method used to run one tick of the simulation.
+	 *
+	 * @return true if there are events to be processed, false if event queue is empty
+	 */
+	private boolean runClockTick() {
+		// only the entities that received events or became runnable since they last ran, in id order
+		SimEntity ent;
+		List<SimEntity> window = new ArrayList<>();
+		for (int id = runnable.nextSetBit(0); id >= 0; id = runnable.nextSetBit(id + 1)) {
+			runnable.clear(id);
+			ent = entities.get(id);
+			if (ent.getState() == SimEntity.EntityStatus.RUNNABLE) {
+				if (executor != null && ent.isParallelSafe()) {
+					window.add(ent);
+				} else {
+					// the parallel safe entities before it must have sent their events first
+					runWindow(window);
+					ent.run();
+				}
+			}
+		}
+		runWindow(window);
+
+		if (future.isEmpty()) {
+			running = false;
+			printMessage(clock + ": Simulation: No more future events");
+			return false;
+		}
+
+		// all the events of this timestamp are moved to the deferred queues of their destinations,
+		// so each destination drains its whole batch in a single run() on the next tick
+		long clk = future.peek().eventTicks();
+		SimEvent next;
+		while ((next = future.peek()) != null && next.eventTicks() == clk) {
+			dispatchEvent(future.poll());
+		}
+
+		return true;
+	}
+
+	/**
+	 * Runs consecutive parallel safe entities concurrently, then replays their deferred operations
+	 * in entity id order, i.e. in the order they would have been done by running the entities one
+	 * after the other. The window is emptied.
+	 *
+	 * @param window the parallel safe entities, in id order
+	 */
+	private void runWindow(List<SimEntity> window) {
+		if (window.size() == 1) {
+			window.get(0).run();
+		} else if (window.size() > 1) {
+			List<Future<List<Runnable>>> futures = new ArrayList<>(window.size());
+			// the logging context of the simulation, e.g. its id, follows the entities to the workers
+			Map<String, String> mdc = MDC.getCopyOfContextMap();
+			inParallelWindow = true;
+			try {
+				for (SimEntity ent : window) {
+					futures.add(executor.submit(() -> {
+						CloudSim.setContext(this);
+						if (mdc != null) {
+							MDC.setContextMap(mdc);
+						}
+						List<Runnable> operations = new ArrayList<>();
+						deferredOperations.set(operations);
+						try {
+							ent.run();
+						} finally {
+							deferredOperations.remove();
+							MDC.clear();
+						}
+						return operations;
+					}));
+				}
+				// every entity is awaited, even after a failure, so none is still running once the
+				// window is closed and the deferred operations are done at once again
+				List<List<Runnable>> operations = new ArrayList<>(window.size());
+				Throwable failure = null;
+				for (Future<List<Runnable>> future : futures) {
+					try {
+						operations.add(future.get());
+					} catch (ExecutionException e) {
+						if (failure == null) {
+							failure = e.getCause();
+							futures.forEach(f -> f.cancel(false));
+						}
+					} catch (CancellationException e) {
+						// not started before the failure of another entity
+					}
+				}
+				inParallelWindow = false;
+				if (failure != null) {
+					throw failure instanceof RuntimeException re ? re : new IllegalStateException(failure);
+				}
+				for (List<Runnable> entityOperations : operations) {
+					entityOperations.forEach(Runnable::run);
+				}
+			} catch (InterruptedException e) {
+				futures.forEach(f -> f.cancel(true));
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while running the parallel entities", e);
+			} finally {
+				inParallelWindow = false;
+			}
+		}
+		window.clear();
+	}
+
+	/**
+	 * Runs an operation on the shared state of the simulation, such as the future event list, an
+	 * entity state or an object shared by several entities. It is run at once, unless a parallel safe
+	 * entity is running concurrently with others, in which case it is run after all of them are done,
+	 * in the order of the entity ids (see {@link SimEntity#isParallelSafe()}).
+	 *
+	 * @param operation the operation
+	 */
+	public void defer(Runnable operation) {
+		if (inParallelWindow) {
+			deferredOperations.get().add(operation);
+		} else {
+			operation.run();
+		}
+	}
+
+	/**
+	 * Sets the number of threads running the parallel safe entities of a timestamp, see
+	 * {@link SimEntity#isParallelSafe()}. It must be set before the simulation starts.
+	 *
+	 * @param parallelism the number of threads, 1 runs every entity on the calling thread
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1");
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Gets the number of threads running the parallel safe entities of a timestamp.
+	 *
+	 * @return the parallelism
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Internal method used to stop the simulation.
+	 */
+	public void runStop() {
+		printMessage("Simulation completed.");
+	}
+
+	/**
+	 * Marks an entity as having to run on the next tick, e.g. because it went back to
+	 * {@link SimEntity.EntityStatus#RUNNABLE} with events left in its deferred queue.
+	 *
+	 * @param id the entity id
+	 */
+	void markRunnable(int id) {
+		defer(() -> runnable.set(id));
+	}
+
+	/**
+	 * Gets the number of events dispatched since the simulation was initialised.
+	 *
+	 * @return the number of processed events
+	 */
+	public long getProcessedEvents() {
+		return processedEvents;
+	}
+
+	/**
+	 * Gets the number of events dispatched per second of wall-clock time spent running the
+	 * simulation.
+	 *
+	 * @return the events per second, or 0 if the simulation has not run yet
+	 */
+	public double getEventsPerSecond() {
+		return runtime == 0 ? 0 : processedEvents / (runtime / 1e9);
+	}
+
+	/**
+	 * Used to pause an entity for some time.
+	 *
+	 * @param srcId the entity source id
+	 * @param delay the delay
+	 */
+	public void pause(int srcId, double delay) {
+		SimEvent e = newEvent(SimEvent.HOLD_DONE, toTicks(clock + delay), srcId, srcId, CloudActionTags.BLANK, null);
+		addEvent(e, false);
+		entities.get(srcId).setState(SimEntity.EntityStatus.HOLDING);
+	}
+
+	/**
+	 * Used to send an event from one entity to another.
+	 *
+	 * @param srcId the src
+	 * @param dstId the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data the data
+	 */
+	public void send(int srcId, int dstId, double delay, CloudSimTags tag, Object data) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+		if (delay >= Double.MAX_VALUE) {
+			throw new RuntimeException("Send delay can't be infinite.");
+		}
+
+		SimEvent e = newEvent(SimEvent.SEND, toTicks(clock + delay), srcId, dstId, tag, data);
+		addEvent(e, false);
+	}
+
+	/**
+	 * Used to send an event carrying primitive values instead of a data object from one entity to
+	 * another, see {@link SimEvent#getLongValue(int)}.
+	 *
+	 * @param srcId the src
+	 * @param dstId the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param value0 the first value
+	 * @param value1 the second value
+	 * @param value2 the third value
+	 */
+	public void sendValues(int srcId, int dstId, double delay, CloudSimTags tag, long value0, long value1, long value2) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+		if (delay >= Double.MAX_VALUE) {
+			throw new RuntimeException("Send delay can't be infinite.");
+		}
+
+		SimEvent e = newEvent(SimEvent.SEND, toTicks(clock + delay), srcId, dstId, tag, null);
+		e.setValues(value0, value1, value2);
+		addEvent(e, false);
+	}
+
+	/**
+	 * Used to send an event from one entity to another, with priority in the queue.
+	 *
+	 * @param srcId the src
+	 * @param dstId the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data the data
+	 */
+	public void sendFirst(int srcId, int dstId, double delay, CloudSimTags tag, Object data) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+
+		SimEvent e = newEvent(SimEvent.SEND, toTicks(clock + delay), srcId, dstId, tag, data);
+		addEvent(e, true);
+	}
+
+	/**
+	 * Gets an event from the pool. The pool is confined to the thread running the simulation, so the
+	 * parallel safe entities running concurrently get new events, which join the pool once released.
+	 */
+	private SimEvent newEvent(int type, long ticks, int src, int dest, CloudSimTags tag, Object data) {
+		double time = (double) ticks / ticksPerSecond;
+		if (inParallelWindow) {
+			return new SimEvent(type, ticks, time, src, dest, tag, data);
+		}
+		return eventPool.obtain(type, ticks, time, src, dest, tag, data);
+	}
+
+	/**
+	 * Adds an event to the future event list, deferred if parallel safe entities are running.
+	 */
+	private void addEvent(SimEvent e, boolean first) {
+		if (inParallelWindow) {
+			deferredOperations.get().add(first ? () -> future.addEventFirst(e) : () -> future.addEvent(e));
+		} else if (first) {
+			future.addEventFirst(e);
+		} else {
+			future.addEvent(e);
+		}
+	}
+
+	/**
+	 * Releases an event once it has been processed, so it can be reused by a later send. The event
+	 * must not be referenced by the simulation any more.
+	 *
+	 * @param e the event
+	 */
+	void releaseEvent(SimEvent e) {
+		if (inParallelWindow) {
+			deferredOperations.get().add(() -> eventPool.release(e));
+		} else {
+			eventPool.release(e);
+		}
+	}
+
+	/**
+	 * Sets the safe mode of the event pool, in which released events are never reused so that any
+	 * use of an event after its destination processed it fails, see {@link SimEvent}.
+	 *
+	 * @param safeMode true to detect the use of released events
+	 */
+	public void setEventPoolSafeMode(boolean safeMode) {
+		eventPool.setSafeMode(safeMode);
+	}
+
+	/**
+	 * Gets the number of events that were reused from the event pool instead of created.
+	 *
+	 * @return the number of reused events
+	 */
+	public long getReusedEvents() {
+		return eventPool.getReusedEvents();
+	}
+
+	/**
+	 * Sets an entity's state to be waiting. Only events that satisfy the predicate will be passed
+	 * to the entity.
+	 *
+	 * @param srcId the src
+	 * @param p the p
+	 */
+	public void wait(int srcId, Predicate p) {
+		entities.get(srcId).setState(SimEntity.EntityStatus.WAITING);
+		if (p != CloudSim.SIM_ANY) {
+			// If a predicate has been used store it in order to check it
+			defer(() -> waitPredicates.put(srcId, p));
+		}
+	}
+
+	/**
+	 * Removes an event from the event queue.
+	 *
+	 * @param srcId the entity source id
+	 * @param p the p
+	 * @return the sim event
+	 */
+	public SimEvent cancel(int srcId, Predicate p) {
+		checkNotInParallelWindow();
+		return future.cancel(srcId, p);
+	}
+
+	/**
+	 * Removes all events that match a given predicate from the future event queue.
+	 *
+	 * @param srcId the entity source id
+	 * @param p the p
+	 * @return true, if successful
+	 */
+	public boolean cancelAll(int srcId, Predicate p) {
+		checkNotInParallelWindow();
+		return future.cancelAll(srcId, p);
+	}
+
+	/**
+	 * Fails if parallel safe entities are running, for the operations whose result depends on the
+	 * shared state and so cannot be deferred.
+	 */
+	private void checkNotInParallelWindow() {
+		if (inParallelWindow) {
+			throw new IllegalStateException("A parallel safe entity cannot cancel events");
+		}
+	}
+
+	/**
+	 * Dispatch event to destination entity
+	 *
+	 * @param e the e
+	 */
+	private void dispatchEvent(SimEvent e) {
+		int dstId = e.getDestinationId();
+		int srcId = e.getSourceId();
+		SimEntity destEnt = entities.get(dstId);
+
+		// Update the system's clock
+		if (e.eventTicks() < clockTicks) {
+			throw new IllegalArgumentException("Past event detected.");
+		}
+		clockTicks = e.eventTicks();
+		clock = e.eventTime();
+		processedEvents++;
+
+		// Ok now process it
+		switch (e.getType()) {
+			case SimEvent.ENULL -> throw new IllegalArgumentException("Event has a null type.");
+			case SimEvent.CREATE -> {
+				addEntityDynamically((SimEntity) e.getData());
+				releaseEvent(e);
+			}
+			case SimEvent.SEND -> {
+				if (destEnt.getState() == SimEntity.EntityStatus.WAITING) { // NOTE: this branch is never used
+					Predicate p = waitPredicates.get(dstId);
+
+					if ((p == null) || (p.match(e))) {
+						destEnt.setState(SimEntity.EntityStatus.RUNNABLE);
+						waitPredicates.remove(dstId);
+					}
+				}
+				destEnt.getIncomingEvents().add(e);
+				runnable.set(dstId);
+			}
+			case SimEvent.HOLD_DONE -> {
+				entities.get(srcId).setState(SimEntity.EntityStatus.RUNNABLE);
+				releaseEvent(e);
+			}
+			default -> {
+			}
+		}
+	}
+
+	/**
+	 * Internal method used to start the simulation.
+	 */
+	public void runStart() {
+		running = true;
+		// Start all the entities
+		for (SimEntity ent : entities) {
+			ent.startEntity();
+		}
+
+		printMessage("Entities started.");
+	}
+
+	/**
+	 * Check if the simulation is still running.
+	 *
+	 * @return if the simulation is still running, otherwise
+	 */
+	public boolean running() {
+		return running;
+	}
+
+	/**
+	 * This method is called if one wants to pause the simulation.
+	 *
+	 * @return true, if successful otherwise.
+	 */
+	public boolean pauseSimulation() {
+		paused = true;
+		return paused;
+	}
+
+	/**
+	 * This method is called if one wants to pause the simulation at a given time.
+	 *
+	 * @param time the time at which the simulation has to be paused
+	 * @return true, if successful otherwise.
+	 */
+	public boolean pauseSimulation(long time) {
+		if (time <= clock) {
+			return false;
+		} else {
+			pauseAt = time;
+		}
+		return true;
+	}
+
+	/**
+	 * This method is called if one wants to resume the simulation that has previously been paused.
+	 *
+	 * @return if the simulation has been restarted or or otherwise.
+	 */
+	public boolean resumeSimulation() {
+		paused = false;
+
+		if (pauseAt <= clock) {
+			pauseAt = -1;
+		}
+
+		return !paused;
+	}
+
+	/**
+	 * Start the simulation running.
+	 *
+	 * @return the last clock value
+	 */
+	public double run() {
+		long start = System.nanoTime();
+		if (!running) {
+			runStart();
+		}
+		if (parallelism > 1 && executor == null) {
+			executor = Executors.newFixedThreadPool(parallelism, r -> {
+				Thread thread = new Thread(r, "sim-entity");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		while (true) {
+			if (!runClockTick() || abruptTerminate) {
+				break;
+			}
+
+			// this block allows termination of simulation at a specific time
+			if (terminateAt > 0.0 && clock >= terminateAt) {
+				terminateSimulation();
+				setClockTicks(toTicks(terminateAt));
+				break;
+			}
+
+			if (pauseAt != -1
+					&& ((!future.isEmpty() && clock <= pauseAt && pauseAt <= future.peek()
+							.eventTime()) || future.isEmpty() && pauseAt <= clock)) {
+				pauseSimulation();
+				setClockTicks(toTicks(pauseAt));
+			}
+
+			while (paused) {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		double clock = clock();
+		runtime += System.nanoTime() - start;
+
+		finishSimulation();
+		runStop();
+
+		return clock;
+	}
+
+	/**
+	 * Internal method that allows the entities to terminate.
+	 */
+	private void finishSimulation() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+
+		// Allow all entities to exit their body method
+		if (!abruptTerminate) {
+			for (SimEntity ent : entities) {
+				if (ent.getState() != SimEntity.EntityStatus.FINISHED) {
+					ent.run();
+				}
+			}
+		}
+
+		for (SimEntity ent : entities) {
+			ent.shutdownEntity();
+		}
+
+		// reset the simulation state
+		entities = null;
+		entitiesByName = null;
+		future = null;
+		setClockTicks(0);
+		running = false;
+
+		waitPredicates = null;
+		paused = false;
+		pauseAt = -1;
+		abruptTerminate = false;
+	}
+
+	/**
+	 * Abruptally terminate.
+	 */
+	public void abruptallyTerminate() {
+		abruptTerminate = true;
+	}
+
+	/**
+	 * Prints a message about the progress of the simulation.
+	 *
+	 * @param message the message
+	 */
+	private void printMessage(String message) {
+		Log.println(message);
+	}
+
+	/**
+	 * Checks if is paused.
+	 *
+	 * @return true, if is paused
+	 */
+	public boolean isPaused() {
+		return paused;
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.lists;
+
+import java.util.Arrays;
+
+/**
+ * IdIndex maps the non-negative ids of entities to values in an array indexed by id. Entity ids
+ * are dense small integers, so a lookup is a single array access instead of a scan of a list
+ * such as {@link VmList#getById(java.util.List, int)}.
+ *
+ * @param <T> the type of the values
+ * @since CloudSim Toolkit 7.0
+ */
+public class IdIndex<T> {
+
+	/** The values, indexed by id. */
+	private Object[] table = new Object[16];
+
+	/** The number of ids with a value. */
+	private int size;
+
+	/**
+	 * Gets the value of an id.
+	 *
+	 * @param id the id
+	 * @return the value, or $null if the id has none
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int id) {
+		return id >= 0 && id < table.length ? (T) table[id] : null;
+	}
+
+	/**
+	 * Sets the value of an id.
+	 *
+	 * @param id the id
+	 * @param value the value, not $null
+	 * @return the previous value of the id, or $null
+	 * @pre id >= 0
+	 */
+	public T put(int id, T value) {
+		if (id < 0) {
+			throw new IllegalArgumentException("Negative id " + id);
+		}
+		if (id >= table.length) {
+			table = Arrays.copyOf(table, Math.max(id + 1, table.length * 2));
+		}
+		T previous = get(id);
+		table[id] = value;
+		if (previous == null) {
+			size++;
+		}
+		return previous;
+	}
+
+	/**
+	 * Removes the value of an id.
+	 *
+	 * @param id the id
+	 * @return the removed value, or $null
+	 */
+	public T remove(int id) {
+		T previous = get(id);
+		if (previous != null) {
+			table[id] = null;
+			size--;
+		}
+		return previous;
+	}
+
+	/** Removes all the values. */
+	public void clear() {
+		Arrays.fill(table, null);
+		size = 0;
+	}
+
+	/** @return the number of ids with a value */
+	public int size() {
+		return size;
+	}
+}
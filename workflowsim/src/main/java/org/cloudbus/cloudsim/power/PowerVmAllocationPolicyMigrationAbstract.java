@@ -534,7 +534,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends VmAllocat
 				Log.printlnConcat("Couldn't restore VM #", vm.getId(), " on host #", host.getId());
 				System.exit(0);
 			}
-			getGuestTable().put(vm.getUid(), host);
+			putGuestHost(vm, host);
 		}
 	}
 